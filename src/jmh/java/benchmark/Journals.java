@@ -0,0 +1,38 @@
+package benchmark;
+
+import io.JournalGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Journals of any size for the benchmarks, always the same for the same size.
+ */
+
+final class Journals {
+    static final Locale LOCALE = Locale.forLanguageTag("es-ES");
+    static final LocalDate START = LocalDate.of(2023, 1, 1);
+    static final LocalDate END = LocalDate.of(2032, 12, 31);
+    static final int PAYEES = 500;
+
+    private Journals() {
+    }
+
+    /**
+     * Writes a journal with the given number of transactions to a temporary file, in the format of
+     * {@link #LOCALE} (see {@link JournalGenerator}), spread over ten years.
+     */
+    static Path write(int size) throws IOException {
+        var file = Files.createTempFile("benchmark-" + size + "-", ".ledger");
+        new JournalGenerator(size, LOCALE)
+                .withTransactions(size)
+                .withAccountTree(2, 7)
+                .withPayees(PAYEES, 1.0)
+                .between(START, END)
+                .generate(file);
+        return file;
+    }
+}
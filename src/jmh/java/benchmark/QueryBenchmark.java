@@ -0,0 +1,164 @@
+package benchmark;
+
+import core.*;
+import io.LedgerReader;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balances, filters and reports of a journal.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final String START_DATE = "2023/01/01";
+    private static final String END_DATE = "2023/03/31";
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Journal journal;
+    private Account cash;
+    private Account expenses;
+    private Payee payee;
+    private LocalDate date;
+    private Money amount;
+
+    @Setup
+    public void setUp() throws IOException {
+        var file = Journals.write(size);
+        journal = new LedgerReader(Journals.LOCALE).readJournal(file).getJournal();
+        Files.delete(file);
+        // arguments taken from the journal, so every query has results
+        var transaction = journal.getTransactions().get(journal.getTransactions().size() / 2);
+        var entries = transaction.entries();
+        expenses = entries.get(0).account();
+        cash = entries.get(entries.size() - 1).account();
+        payee = transaction.payee();
+        date = transaction.date();
+        amount = transaction.entries().get(0).amount();
+        // build the indexes before measuring
+        journal.getBalance(cash);
+    }
+
+    @Benchmark
+    public Money getBalanceByName() {
+        return journal.getBalance("Assets:Cash");
+    }
+
+    @Benchmark
+    public Money getBalanceByAccount() {
+        return journal.getBalance(expenses);
+    }
+
+    @Benchmark
+    public Money getBalanceBetweenDates() {
+        return journal.getBalance(cash, START_DATE, END_DATE);
+    }
+
+    @Benchmark
+    public AmountAccumulator getBalances() {
+        return journal.getBalances("Expenses");
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayee() {
+        return journal.getEntriesBy(payee);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByDate() {
+        return journal.getEntriesBy(date);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByAccount() {
+        return journal.getEntriesBy(expenses);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByAmount() {
+        return journal.getEntriesBy(amount);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayeeAndDate() {
+        return journal.getEntriesBy(payee, date);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayeeAndAccount() {
+        return journal.getEntriesBy(payee, expenses);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayeeAndAmount() {
+        return journal.getEntriesBy(payee, amount);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByAccountAndDate() {
+        return journal.getEntriesBy(expenses, date);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByAccountAndAmount() {
+        return journal.getEntriesBy(expenses, amount);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByAmountAndDate() {
+        return journal.getEntriesBy(amount, date);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayeeAccountAndAmount() {
+        return journal.getEntriesBy(payee, expenses, amount);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayeeAccountAndDate() {
+        return journal.getEntriesBy(payee, expenses, date);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByPayeeDateAndAmount() {
+        return journal.getEntriesBy(payee, date, amount);
+    }
+
+    @Benchmark
+    public List<Entry> getEntriesByAccountDateAndAmount() {
+        return journal.getEntriesBy(expenses, date, amount);
+    }
+
+    @Benchmark
+    public String getTransactionReportByAccount() {
+        return journal.getTransactionReport(expenses);
+    }
+
+    @Benchmark
+    public String getTransactionReportByAccounts() {
+        return journal.getTransactionReport(List.of(expenses, cash));
+    }
+
+    @Benchmark
+    public String getTransactionReportByPayee() {
+        return journal.getTransactionReport(payee);
+    }
+
+    @Benchmark
+    public String getTransactionReportBetweenDates() {
+        return journal.getTransactionReport(START_DATE, END_DATE);
+    }
+}
@@ -0,0 +1,47 @@
+package benchmark;
+
+import core.Ledger;
+import io.LedgerReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a journal from a file.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Journals.write(size);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Ledger readJournal() {
+        return new LedgerReader(Journals.LOCALE).readJournal(file);
+    }
+
+    @Benchmark
+    public Ledger readJournalInParallel() {
+        return new LedgerReader(Journals.LOCALE).readJournalInParallel(file);
+    }
+}
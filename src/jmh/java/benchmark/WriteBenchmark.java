@@ -0,0 +1,54 @@
+package benchmark;
+
+import core.Journal;
+import io.LedgerReader;
+import io.LedgerWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a journal, to a file and to an appendable that discards the text (to leave the disk out).
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Journal journal;
+    private Path output;
+    private final LedgerWriter writer = new LedgerWriter();
+
+    @Setup
+    public void setUp() throws IOException {
+        var file = Journals.write(size);
+        journal = new LedgerReader(Journals.LOCALE).readJournal(file).getJournal();
+        Files.delete(file);
+        output = Files.createTempFile("benchmark-output-", ".ledger");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void writeJournalToFile() throws IOException {
+        writer.writeJournal(journal, output);
+    }
+
+    @Benchmark
+    public void writeJournalToAppendable() throws IOException {
+        writer.writeJournal(journal, Writer.nullWriter());
+    }
+}
@@ -1,7 +1,5 @@
 package core;
 
-import java.util.Objects;
-
 /**
  * Represents an account.
  */
@@ -9,9 +7,17 @@ import java.util.Objects;
 public class Account {
     private final String name;
     private final String shortName;
+    private final int id;
+    private final int hash;
 
     public Account(String name) {
+        this(name, -1);
+    }
+
+    Account(String name, int id) {
         this.name = name;
+        this.id = id;
+        this.hash = name.hashCode();
 
         var lastIndex = name.lastIndexOf(":");
         this.shortName = (lastIndex != -1) ? name.substring(lastIndex + 1) : name;
@@ -25,17 +31,25 @@ public class Account {
         return shortName;
     }
 
+    /**
+     * Returns the id given to this account by the chart of accounts it belongs to,
+     * or -1 if it has not been added to any chart of accounts.
+     */
+    public int getId() {
+        return id;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Account account = (Account) o;
-        return Objects.equals(name, account.name);
+        return hash == account.hash && name.equals(account.name);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return hash;
     }
 
     @Override
@@ -0,0 +1,152 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Balances of the accounts of a journal, updated as entries are posted: the running balance
+ * of each account, and its history of balances over time (see {@link BalanceHistory}), so
+ * that balances do not need to go through the entries. An account with entries in several
+ * currencies has a history for each currency.
+ */
+
+class AccountBalances {
+    private static final int MAX_CACHED_QUERIES = 1024;
+
+    // histories of each account, one per currency (in the order the currencies were first posted)
+    private final Map<String, BalanceHistory[]> histories;
+    // histories of the accounts matching each recent query, cleared when new histories are added or when it is full
+    // (concurrent, as several threads can query the balances of a journal that is not changing)
+    private final Map<String, List<BalanceHistory>> matchingAccounts;
+
+    AccountBalances() {
+        this.histories = new LinkedHashMap<>();
+        this.matchingAccounts = new ConcurrentHashMap<>();
+    }
+
+    void post(int day, Account account, Money amount) {
+        getHistory(account, amount.getCurrencyUnit()).add(day, amount);
+    }
+
+    /**
+     * Adds an amount given in minor units of its currency (e.g., cents) to the balance of an account on a day (epoch day).
+     */
+    void post(int day, Account account, CurrencyUnit currency, long amountMinor) {
+        getHistory(account, currency).add(day, currency, amountMinor);
+    }
+
+    private BalanceHistory getHistory(Account account, CurrencyUnit currency) {
+        var name = account.getName();
+        var accountHistories = histories.get(name);
+        if (accountHistories != null) {
+            for (var history : accountHistories) {
+                if (history.getCurrency().equals(currency)) {
+                    return history;
+                }
+            }
+            accountHistories = Arrays.copyOf(accountHistories, accountHistories.length + 1);
+        } else {
+            accountHistories = new BalanceHistory[1];
+        }
+        var history = new BalanceHistory(account, currency);
+        accountHistories[accountHistories.length - 1] = history;
+        histories.put(name, accountHistories);
+        matchingAccounts.clear();
+        return history;
+    }
+
+    /**
+     * Returns the sum of the balances in the given currency of all the accounts whose name contains the given text.
+     */
+    Money getBalance(String accountName, CurrencyUnit currency) {
+        return getBalances(accountName).getTotal(currency);
+    }
+
+    /**
+     * Returns the sums of the balances in each currency of all the accounts whose name contains the given text.
+     */
+    AmountAccumulator getBalances(String accountName) {
+        var balance = new AmountAccumulator();
+        for (var history : getMatchingAccounts(accountName)) {
+            history.addBalance(balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Returns the sum of the entries in the given currency between two dates (both included)
+     * of all the accounts whose name contains the given text.
+     */
+    Money getBalance(String accountName, LocalDate start, LocalDate end, CurrencyUnit currency) {
+        return getBalances(accountName, start, end).getTotal(currency);
+    }
+
+    /**
+     * Returns the sums of the entries in each currency between two dates (both included)
+     * of all the accounts whose name contains the given text.
+     */
+    AmountAccumulator getBalances(String accountName, LocalDate start, LocalDate end) {
+        var startDay = (int) start.toEpochDay();
+        var endDay = (int) end.toEpochDay();
+        var balance = new AmountAccumulator();
+        for (var history : getMatchingAccounts(accountName)) {
+            history.addBalance(startDay, endDay, balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Returns the balance in the given currency of every account at the end of the given date.
+     */
+    Map<Account, Money> getBalances(LocalDate date, CurrencyUnit currency) {
+        var day = (int) date.toEpochDay();
+        var result = new LinkedHashMap<Account, Money>();
+        for (var accountHistories : histories.values()) {
+            Money balance = null;
+            for (var history : accountHistories) {
+                if (history.getCurrency().equals(currency)) {
+                    balance = history.getBalance(day);
+                }
+            }
+            result.put(accountHistories[0].getAccount(), (balance != null) ? balance : Money.zero(currency));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of histories of the accounts whose name contains the given text.
+     */
+    int countMatchingHistories(String accountName) {
+        return getMatchingAccounts(accountName).size();
+    }
+
+    /**
+     * Sorts the histories of all the accounts (see {@link BalanceHistory#sort()}).
+     */
+    void sort() {
+        for (var accountHistories : histories.values()) {
+            for (var history : accountHistories) {
+                history.sort();
+            }
+        }
+    }
+
+    private List<BalanceHistory> getMatchingAccounts(String accountName) {
+        var matching = matchingAccounts.get(accountName);
+        if (matching == null) {
+            matching = histories.entrySet().stream()
+                    .filter(entry -> entry.getKey().contains(accountName))
+                    .flatMap(entry -> Arrays.stream(entry.getValue()))
+                    .toList();
+            if (matchingAccounts.size() >= MAX_CACHED_QUERIES) {
+                matchingAccounts.clear();
+            }
+            matchingAccounts.put(accountName, matching);
+        }
+        return matching;
+    }
+}
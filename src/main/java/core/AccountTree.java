@@ -0,0 +1,150 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.util.*;
+
+/**
+ * Represents the hierarchy of accounts, where each ":"-separated segment of an account name
+ * is a level of the tree (e.g., "Expenses:Restaurant:Food" is a child of "Expenses:Restaurant",
+ * which is a child of "Expenses"). Each node keeps the aggregated balance of its subtree, which
+ * is updated as entries are posted, so getting the balance of a subtree does not need to go
+ * through the entries.
+ */
+
+public class AccountTree {
+    private final Node root;
+    private final Map<String, Node> nodes;
+
+    public AccountTree() {
+        this.root = new Node("", "", null);
+        this.nodes = new HashMap<>();
+    }
+
+    /**
+     * Adds the amount of an entry to the balance of its account and of all its parent accounts.
+     */
+    public void post(Entry entry) {
+        var amount = entry.amount();
+        if (amount != null) {
+            post(entry.account(), amount);
+        }
+    }
+
+    void post(Account account, Money amount) {
+        for (var node = getOrCreateNode(account.getName()); node != null; node = node.parent) {
+            node.balance.add(amount);
+        }
+    }
+
+    /**
+     * Adds an amount given in minor units of its currency (e.g., cents) to the balance of an account and its parents.
+     */
+    void post(Account account, CurrencyUnit currency, long amountMinor) {
+        for (var node = getOrCreateNode(account.getName()); node != null; node = node.parent) {
+            node.balance.add(currency, amountMinor);
+        }
+    }
+
+    /**
+     * Returns the node of an account, given its full name, or null if there is no such account.
+     */
+    public Node getNode(String accountName) {
+        return nodes.get(accountName);
+    }
+
+    /**
+     * Returns the top-level accounts, sorted by name.
+     */
+    public Collection<Node> getRoots() {
+        return root.getChildren();
+    }
+
+    /**
+     * Returns the balance of all the accounts, or null if no entries have been posted.
+     * Throws a CurrencyMismatchException if the entries are in more than one currency.
+     */
+    public Money getBalance() {
+        return root.getBalance();
+    }
+
+    /**
+     * Returns the balance of all the accounts in each currency.
+     */
+    public List<Money> getBalances() {
+        return root.getBalances();
+    }
+
+    private Node getOrCreateNode(String accountName) {
+        var node = nodes.get(accountName);
+        if (node == null) {
+            var lastIndex = accountName.lastIndexOf(':');
+            var parent = (lastIndex != -1) ? getOrCreateNode(accountName.substring(0, lastIndex)) : root;
+            node = new Node(accountName.substring(lastIndex + 1), accountName, parent);
+            parent.children.put(node.name, node);
+            nodes.put(accountName, node);
+        }
+        return node;
+    }
+
+    /**
+     * Represents an account in the tree.
+     */
+    public static class Node {
+        private final String name;
+        private final String fullName;
+        private final Node parent;
+        private final SortedMap<String, Node> children;
+        private final AmountAccumulator balance;
+
+        private Node(String name, String fullName, Node parent) {
+            this.name = name;
+            this.fullName = fullName;
+            this.parent = parent;
+            this.children = new TreeMap<>();
+            this.balance = new AmountAccumulator();
+        }
+
+        /**
+         * Returns the last segment of the account name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        /**
+         * Returns the child accounts, sorted by name.
+         */
+        public Collection<Node> getChildren() {
+            return Collections.unmodifiableCollection(children.values());
+        }
+
+        /**
+         * Returns the balance of this account and all its child accounts, or null if no entries have been posted.
+         * Throws a CurrencyMismatchException if the entries are in more than one currency.
+         */
+        public Money getBalance() {
+            return balance.getTotal();
+        }
+
+        /**
+         * Returns the balance of this account and all its child accounts in each currency,
+         * in the order the currencies were first posted.
+         */
+        public List<Money> getBalances() {
+            return balance.getTotals();
+        }
+
+        /**
+         * Returns the balance of this account and all its child accounts in the given currency.
+         */
+        public Money getBalance(CurrencyUnit currency) {
+            return balance.getTotal(currency);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package core;
+
+import org.joda.money.CurrencyMismatchException;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sum of amounts in fixed point: the amounts of each currency are added as a long number of
+ * minor units (e.g., cents), so adding an amount does not create any objects. If the sum of a
+ * currency no longer fits in a long, the part that does not fit is kept as a BigDecimal.
+ * The sums are only converted to {@link Money} when they are requested.
+ */
+
+public class AmountAccumulator {
+    private CurrencyUnit[] currencies;
+    private long[] sums;
+    // minor units of each currency that did not fit in its sum (null while everything fits)
+    private BigDecimal[] overflows;
+    private int size;
+
+    public AmountAccumulator() {
+        this.currencies = new CurrencyUnit[1];
+        this.sums = new long[1];
+        this.overflows = new BigDecimal[1];
+    }
+
+    public void add(Money amount) {
+        var currency = amount.getCurrencyUnit();
+        long amountMinor;
+        try {
+            amountMinor = amount.getAmountMinorLong();
+        } catch (ArithmeticException e) {
+            add(currency, amount.getAmount().movePointRight(currency.getDecimalPlaces()));
+            return;
+        }
+        add(currency, amountMinor);
+    }
+
+    /**
+     * Adds an amount given in minor units of its currency (e.g., cents).
+     */
+    public void add(CurrencyUnit currency, long amountMinor) {
+        var i = indexOf(currency);
+        var sum = sums[i] + amountMinor;
+        // the sum overflows when both values have the same sign and the result has a different one
+        if (((sums[i] ^ sum) & (amountMinor ^ sum)) < 0) {
+            addOverflow(i, BigDecimal.valueOf(sums[i]));
+            sum = amountMinor;
+        }
+        sums[i] = sum;
+    }
+
+    public void subtract(CurrencyUnit currency, long amountMinor) {
+        if (amountMinor == Long.MIN_VALUE) {
+            add(currency, BigDecimal.valueOf(amountMinor).negate());
+        } else {
+            add(currency, -amountMinor);
+        }
+    }
+
+    /**
+     * Adds an amount in minor units that may not fit in a long.
+     */
+    void add(CurrencyUnit currency, BigDecimal amountMinor) {
+        addOverflow(indexOf(currency), amountMinor);
+    }
+
+    public void add(AmountAccumulator other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.currencies[i], other.sums[i]);
+            if (other.overflows[i] != null) {
+                add(other.currencies[i], other.overflows[i]);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of currencies of the amounts.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of the amounts in the given currency (zero if there are none).
+     */
+    public Money getTotal(CurrencyUnit currency) {
+        for (int i = 0; i < size; i++) {
+            if (currencies[i].equals(currency)) {
+                return toMoney(i);
+            }
+        }
+        return Money.zero(currency);
+    }
+
+    /**
+     * Returns the sum of the amounts, or null if no amounts have been added.
+     * Throws a CurrencyMismatchException if the amounts are in more than one currency.
+     */
+    public Money getTotal() {
+        if (size == 0) {
+            return null;
+        }
+        if (size > 1) {
+            throw new CurrencyMismatchException(currencies[0], currencies[1]);
+        }
+        return toMoney(0);
+    }
+
+    /**
+     * Returns the sum of the amounts of each currency, in the order the currencies were first added.
+     */
+    public List<Money> getTotals() {
+        var totals = new ArrayList<Money>(size);
+        for (int i = 0; i < size; i++) {
+            totals.add(toMoney(i));
+        }
+        return totals;
+    }
+
+    private Money toMoney(int i) {
+        if (overflows[i] == null) {
+            return Money.ofMinor(currencies[i], sums[i]);
+        }
+        var amountMinor = overflows[i].add(BigDecimal.valueOf(sums[i]));
+        return Money.of(currencies[i], amountMinor.movePointLeft(currencies[i].getDecimalPlaces()));
+    }
+
+    private void addOverflow(int i, BigDecimal amountMinor) {
+        overflows[i] = (overflows[i] != null) ? overflows[i].add(amountMinor) : amountMinor;
+    }
+
+    private int indexOf(CurrencyUnit currency) {
+        for (int i = 0; i < size; i++) {
+            if (currencies[i] == currency || currencies[i].equals(currency)) {
+                return i;
+            }
+        }
+        if (size == currencies.length) {
+            currencies = Arrays.copyOf(currencies, size * 2);
+            sums = Arrays.copyOf(sums, size * 2);
+            overflows = Arrays.copyOf(overflows, size * 2);
+        }
+        currencies[size] = currency;
+        return size++;
+    }
+}
@@ -0,0 +1,273 @@
+package core;
+
+import org.joda.money.CurrencyMismatchException;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * The entries of an account as a time series: their dates (as epoch days) sorted in ascending
+ * order, and the cumulative sums of their amounts (prefix sums). The balance between two dates
+ * is then found with two binary searches and a subtraction.
+ * <p>
+ * All the entries are in the same currency. Amounts and sums are kept as long numbers of minor
+ * units of that currency (e.g., cents), and only switch to BigDecimal if an amount or a sum
+ * does not fit in a long.
+ */
+
+class BalanceHistory {
+    private final Account account;
+    private CurrencyUnit currency;
+    private int[] days;
+    private long[] amounts;
+    private long[] sums;
+    // used instead of amounts and sums once any of them does not fit in a long
+    private BigDecimal[] largeAmounts;
+    private BigDecimal[] largeSums;
+    private int size;
+    private final AmountAccumulator total;
+    // false if entries were added out of date order, and the sums need to be recalculated
+    private boolean sorted;
+
+    BalanceHistory(Account account) {
+        this(account, null);
+    }
+
+    /**
+     * Creates the history of the entries of an account in the given currency
+     * (or in the currency of its first entry, if null).
+     */
+    BalanceHistory(Account account, CurrencyUnit currency) {
+        this.account = account;
+        this.currency = currency;
+        this.days = new int[4];
+        this.amounts = new long[4];
+        this.sums = new long[4];
+        this.total = new AmountAccumulator();
+        this.sorted = true;
+    }
+
+    Account getAccount() {
+        return account;
+    }
+
+    CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    void add(int day, Money amount) {
+        var amountCurrency = amount.getCurrencyUnit();
+        long amountMinor;
+        try {
+            amountMinor = amount.getAmountMinorLong();
+        } catch (ArithmeticException e) {
+            add(day, amountCurrency, amount.getAmount().movePointRight(amountCurrency.getDecimalPlaces()));
+            return;
+        }
+        add(day, amountCurrency, amountMinor);
+    }
+
+    /**
+     * Adds an amount given in minor units of its currency (e.g., cents).
+     */
+    void add(int day, CurrencyUnit amountCurrency, long amountMinor) {
+        addDay(day, amountCurrency);
+        total.add(amountCurrency, amountMinor);
+        if (largeAmounts == null) {
+            amounts[size] = amountMinor;
+        } else {
+            largeAmounts[size] = BigDecimal.valueOf(amountMinor);
+        }
+        size++;
+        if (sorted) {
+            updateSum(size - 1);
+        }
+    }
+
+    private void add(int day, CurrencyUnit amountCurrency, BigDecimal amountMinor) {
+        addDay(day, amountCurrency);
+        total.add(amountCurrency, amountMinor);
+        if (largeAmounts == null) {
+            switchToLarge();
+        }
+        largeAmounts[size] = amountMinor;
+        size++;
+        if (sorted) {
+            updateSum(size - 1);
+        }
+    }
+
+    // checks the currency of a new entry and sets its day, before its amount is set
+    private void addDay(int day, CurrencyUnit amountCurrency) {
+        if (currency == null) {
+            currency = amountCurrency;
+        } else if (!currency.equals(amountCurrency)) {
+            throw new CurrencyMismatchException(currency, amountCurrency);
+        }
+        if (size == days.length) {
+            grow();
+        }
+        if (sorted && size > 0 && day < days[size - 1]) {
+            sorted = false;
+        }
+        days[size] = day;
+    }
+
+    /**
+     * Returns the current balance (the sum of all the entries), or null if there are no entries.
+     */
+    Money getBalance() {
+        return total.getTotal();
+    }
+
+    /**
+     * Returns the balance at the end of the given day, or null if there are no entries up to that day.
+     */
+    Money getBalance(int day) {
+        sort();
+        var n = upperBound(day);
+        if (n == 0) {
+            return null;
+        }
+        var balance = new AmountAccumulator();
+        addSum(n - 1, balance);
+        return balance.getTotal();
+    }
+
+    /**
+     * Returns the sum of the entries between two days (both included), or null if there are none.
+     */
+    Money getBalance(int startDay, int endDay) {
+        var balance = new AmountAccumulator();
+        addBalance(startDay, endDay, balance);
+        return balance.getTotal();
+    }
+
+    /**
+     * Adds the current balance to an accumulator.
+     */
+    void addBalance(AmountAccumulator accumulator) {
+        accumulator.add(total);
+    }
+
+    /**
+     * Adds the sum of the entries between two days (both included) to an accumulator, if there are any.
+     */
+    void addBalance(int startDay, int endDay, AmountAccumulator accumulator) {
+        sort();
+        var end = upperBound(endDay);
+        var start = Math.min(upperBound(startDay - 1), end);
+        if (start == end) {
+            return;
+        }
+        addSum(end - 1, accumulator);
+        if (start > 0) {
+            subtractSum(start - 1, accumulator);
+        }
+    }
+
+    // sum of the entries up to the given one (included)
+    private void addSum(int i, AmountAccumulator accumulator) {
+        if (largeSums != null) {
+            accumulator.add(currency, largeSums[i]);
+        } else {
+            accumulator.add(currency, sums[i]);
+        }
+    }
+
+    private void subtractSum(int i, AmountAccumulator accumulator) {
+        if (largeSums != null) {
+            accumulator.add(currency, largeSums[i].negate());
+        } else {
+            accumulator.subtract(currency, sums[i]);
+        }
+    }
+
+    // sets the sum of the entries up to the given one, from the sum of the previous entries
+    private void updateSum(int i) {
+        if (largeAmounts == null) {
+            var previous = (i > 0) ? sums[i - 1] : 0;
+            var sum = previous + amounts[i];
+            // the sum overflows when both values have the same sign and the result has a different one
+            if (((previous ^ sum) & (amounts[i] ^ sum)) >= 0) {
+                sums[i] = sum;
+                return;
+            }
+            switchToLarge();
+        }
+        largeSums[i] = (i > 0) ? largeSums[i - 1].add(largeAmounts[i]) : largeAmounts[i];
+    }
+
+    private void switchToLarge() {
+        largeAmounts = new BigDecimal[days.length];
+        largeSums = new BigDecimal[days.length];
+        for (int i = 0; i < size; i++) {
+            largeAmounts[i] = BigDecimal.valueOf(amounts[i]);
+            largeSums[i] = BigDecimal.valueOf(sums[i]);
+        }
+        amounts = null;
+        sums = null;
+    }
+
+    private void grow() {
+        var capacity = size * 2;
+        days = Arrays.copyOf(days, capacity);
+        if (largeAmounts != null) {
+            largeAmounts = Arrays.copyOf(largeAmounts, capacity);
+            largeSums = Arrays.copyOf(largeSums, capacity);
+        } else {
+            amounts = Arrays.copyOf(amounts, capacity);
+            sums = Arrays.copyOf(sums, capacity);
+        }
+    }
+
+    // index of the first entry after the given day
+    private int upperBound(int day) {
+        var low = 0;
+        var high = size;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (days[middle] <= day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts the entries by date, if they were not added in date order, and recalculates the sums.
+     */
+    void sort() {
+        if (sorted) {
+            return;
+        }
+        // stable sort by day, keeping the original position in the lower bits
+        var keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) days[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        if (largeAmounts != null) {
+            var sortedAmounts = new BigDecimal[largeAmounts.length];
+            for (int i = 0; i < size; i++) {
+                sortedAmounts[i] = largeAmounts[(int) keys[i]];
+            }
+            largeAmounts = sortedAmounts;
+        } else {
+            var sortedAmounts = new long[amounts.length];
+            for (int i = 0; i < size; i++) {
+                sortedAmounts[i] = amounts[(int) keys[i]];
+            }
+            amounts = sortedAmounts;
+        }
+        for (int i = 0; i < size; i++) {
+            days[i] = (int) (keys[i] >> 32);
+            updateSum(i);
+        }
+        sorted = true;
+    }
+}
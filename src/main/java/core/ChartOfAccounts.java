@@ -1,13 +1,25 @@
 package core;
 
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents a chart of accounts. It works as a symbol table: there is a single (canonical)
+ * instance of each account, identified by a dense integer id (0, 1, 2...) given in the
+ * order the accounts are added.
+ */
 
 public class ChartOfAccounts {
-    private final Set<Account> accounts;
+    // concurrent, as accounts can be added by several parser threads at the same time
+    private final Map<String, Account> accounts;
+    private volatile Account[] accountsById;
+    private int size;
 
     public ChartOfAccounts() {
-        accounts = new HashSet<>();
+        accounts = new ConcurrentHashMap<>();
+        accountsById = new Account[16];
     }
 
     public int size() {
@@ -19,20 +31,59 @@ public class ChartOfAccounts {
     }
 
     public Set<Account> getAccounts() {
-        return accounts;
+        return Set.copyOf(accounts.values());
     }
 
+    /**
+     * Adds an account, returning false if there already was an account with the same name.
+     */
     public boolean addAccount(Account account) {
-        return accounts.add(account);
+        var name = account.getName();
+        if (accounts.containsKey(name)) {
+            return false;
+        }
+        var added = new boolean[1];
+        accounts.computeIfAbsent(name, n -> {
+            added[0] = true;
+            return register(n);
+        });
+        return added[0];
     }
 
+    /**
+     * Returns the canonical account with the given name, adding it if it does not exist yet.
+     */
     public Account addAccount(String accountName) {
-        var account = new Account(accountName);
-        addAccount(account);
-        return account;
+        var account = accounts.get(accountName);
+        return (account != null) ? account : accounts.computeIfAbsent(accountName, this::register);
+    }
+
+    /**
+     * Returns the canonical account with the given name, or null if there is none.
+     */
+    public Account getAccount(String accountName) {
+        return accounts.get(accountName);
+    }
+
+    /**
+     * Returns the account with the given id.
+     */
+    public Account getAccount(int id) {
+        return accountsById[id];
     }
 
     public boolean contains(Account account) {
-        return accounts.contains(account);
+        return accounts.containsKey(account.getName());
+    }
+
+    private synchronized Account register(String accountName) {
+        var account = new Account(accountName, size);
+        var byId = accountsById;
+        if (size == byId.length) {
+            byId = Arrays.copyOf(byId, size * 2);
+        }
+        byId[size++] = account;
+        accountsById = byId;  // publish the new account to readers
+        return account;
     }
 }
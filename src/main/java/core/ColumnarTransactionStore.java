@@ -0,0 +1,238 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Stores the transactions of a journal in columns of primitive values instead of objects:
+ * for each transaction its date (as epoch day), status, payee id and the position of its
+ * first entry; and for each entry its account id, amount (in minor units, e.g. cents) and
+ * currency id, which is -1 for entries without an amount. Amounts that do not fit in a long
+ * are kept apart, sorted by entry position. Accounts, payees and currencies are kept once in
+ * symbol tables. Transaction and entry objects are only built when they are requested.
+ * <p>
+ * Each entry takes 16 bytes instead of the few hundred bytes of its objects, but the indexes
+ * and balances that a {@link Journal} keeps besides its store are not affected by it.
+ */
+
+public class ColumnarTransactionStore implements TransactionStore {
+    // marks the amounts that are kept apart because they do not fit in a long
+    private static final long LARGE_AMOUNT = Long.MIN_VALUE;
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    // transaction columns
+    private int size;
+    private int[] days;
+    private byte[] statuses;
+    private int[] payees;
+    private int[] firstEntries;
+
+    // entry columns
+    private int entryCount;
+    private int[] entryAccounts;
+    private long[] entryAmounts;
+    private int[] entryCurrencies;
+    // positions of the entries with large amounts, in ascending order, and their amounts
+    private int largeCount;
+    private int[] largePositions;
+    private Money[] largeAmounts;
+
+    // symbol tables
+    private final ChartOfAccounts accounts;
+    private final List<Payee> payeeList;
+    private final Map<Payee, Integer> payeeIds;
+    private final List<CurrencyUnit> currencyList;
+    private final Map<CurrencyUnit, Integer> currencyIds;
+
+    public ColumnarTransactionStore() {
+        this(new ChartOfAccounts());
+    }
+
+    public ColumnarTransactionStore(ChartOfAccounts accounts) {
+        this.days = new int[16];
+        this.statuses = new byte[16];
+        this.payees = new int[16];
+        this.firstEntries = new int[17];
+        this.entryAccounts = new int[64];
+        this.entryAmounts = new long[64];
+        this.entryCurrencies = new int[64];
+        this.largePositions = new int[0];
+        this.largeAmounts = new Money[0];
+        this.accounts = accounts;
+        this.payeeList = new ArrayList<>();
+        this.payeeIds = new HashMap<>();
+        this.currencyList = new ArrayList<>();
+        this.currencyIds = new HashMap<>();
+    }
+
+    @Override
+    public void add(Transaction transaction) {
+        if (size == days.length) {
+            var capacity = size * 2;
+            days = Arrays.copyOf(days, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            payees = Arrays.copyOf(payees, capacity);
+            firstEntries = Arrays.copyOf(firstEntries, capacity + 1);
+        }
+        var status = transaction.status();
+        days[size] = (int) transaction.date().toEpochDay();
+        statuses[size] = (byte) ((status != null) ? status.ordinal() + 1 : 0);
+        payees[size] = payeeIds.computeIfAbsent(transaction.payee(), this::addPayee);
+        for (var entry : transaction.entries()) {
+            addEntry(entry);
+        }
+        firstEntries[++size] = entryCount;
+    }
+
+    private void addEntry(Entry entry) {
+        if (entryCount == entryAccounts.length) {
+            var capacity = entryCount * 2;
+            entryAccounts = Arrays.copyOf(entryAccounts, capacity);
+            entryAmounts = Arrays.copyOf(entryAmounts, capacity);
+            entryCurrencies = Arrays.copyOf(entryCurrencies, capacity);
+        }
+        var amount = entry.amount();
+        entryAccounts[entryCount] = accounts.addAccount(entry.account().getName()).getId();
+        if (amount != null) {
+            entryAmounts[entryCount] = toMinorUnits(amount);
+            entryCurrencies[entryCount] = currencyIds.computeIfAbsent(amount.getCurrencyUnit(), this::addCurrency);
+            if (entryAmounts[entryCount] == LARGE_AMOUNT) {
+                addLargeAmount(entryCount, amount);
+            }
+        } else {
+            entryAmounts[entryCount] = 0;
+            entryCurrencies[entryCount] = -1;
+        }
+        entryCount++;
+    }
+
+    private static long toMinorUnits(Money amount) {
+        try {
+            return amount.getAmountMinorLong();
+        } catch (ArithmeticException e) {
+            return LARGE_AMOUNT;
+        }
+    }
+
+    private void addLargeAmount(int position, Money amount) {
+        if (largeCount == largePositions.length) {
+            var capacity = Math.max(4, largeCount * 2);
+            largePositions = Arrays.copyOf(largePositions, capacity);
+            largeAmounts = Arrays.copyOf(largeAmounts, capacity);
+        }
+        largePositions[largeCount] = position;
+        largeAmounts[largeCount] = amount;
+        largeCount++;
+    }
+
+    private Money getLargeAmount(int position) {
+        return largeAmounts[Arrays.binarySearch(largePositions, 0, largeCount, position)];
+    }
+
+    private int addPayee(Payee payee) {
+        payeeList.add(payee);
+        return payeeList.size() - 1;
+    }
+
+    private int addCurrency(CurrencyUnit currency) {
+        currencyList.add(currency);
+        return currencyList.size() - 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Transaction get(int index) {
+        var first = firstEntries[index];
+        var last = firstEntries[index + 1];
+        var entries = new ArrayList<Entry>(last - first);
+        for (int i = first; i < last; i++) {
+            entries.add(new Entry(getAccount(i), getAmount(i)));
+        }
+        return new Transaction(getDate(index), getStatus(index), getPayee(index), entries);
+    }
+
+    @Override
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(days[index]);
+    }
+
+    @Override
+    public TransactionStatus getStatus(int index) {
+        var status = statuses[index];
+        return (status != 0) ? STATUSES[status - 1] : null;
+    }
+
+    @Override
+    public Payee getPayee(int index) {
+        return payeeList.get(payees[index]);
+    }
+
+    @Override
+    public int getEntryCount(int index) {
+        return firstEntries[index + 1] - firstEntries[index];
+    }
+
+    @Override
+    public Entry getEntry(int index, int entry) {
+        var position = firstEntries[index] + entry;
+        return new Entry(getAccount(position), getAmount(position));
+    }
+
+    @Override
+    public Account getAccount(int index, int entry) {
+        return getAccount(firstEntries[index] + entry);
+    }
+
+    @Override
+    public Money getAmount(int index, int entry) {
+        return getAmount(firstEntries[index] + entry);
+    }
+
+    @Override
+    public CurrencyUnit getCurrency(int index, int entry) {
+        var id = entryCurrencies[firstEntries[index] + entry];
+        return (id >= 0) ? currencyList.get(id) : null;
+    }
+
+    @Override
+    public long getAmountMinor(int index, int entry) {
+        var position = firstEntries[index] + entry;
+        var amount = entryAmounts[position];
+        return (amount != LARGE_AMOUNT) ? amount : getLargeAmount(position).getAmountMinorLong();
+    }
+
+    @Override
+    public void addAmount(int index, int entry, AmountAccumulator accumulator) {
+        var position = firstEntries[index] + entry;
+        var currency = entryCurrencies[position];
+        if (currency < 0) {
+            return;
+        }
+        var amount = entryAmounts[position];
+        if (amount != LARGE_AMOUNT) {
+            accumulator.add(currencyList.get(currency), amount);
+        } else {
+            accumulator.add(getLargeAmount(position));
+        }
+    }
+
+    private Account getAccount(int position) {
+        return accounts.getAccount(entryAccounts[position]);
+    }
+
+    private Money getAmount(int position) {
+        var currency = entryCurrencies[position];
+        if (currency < 0) {
+            return null;
+        }
+        var amount = entryAmounts[position];
+        return (amount != LARGE_AMOUNT) ? Money.ofMinor(currencyList.get(currency), amount) : getLargeAmount(position);
+    }
+}
@@ -0,0 +1,240 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A journal that one thread (the writer) adds transactions to while other threads query it.
+ * Readers never take locks or wait for the writer: they get a {@link Snapshot}, a consistent
+ * and unchanging version of the journal with all the transactions published up to that moment.
+ * <p>
+ * The journal is kept twice (left-right): readers use the published replica, while the writer
+ * adds the new transactions to the other one, and then publishes it by swapping both. Before
+ * changing a replica again, the writer waits until the snapshots taken from it are closed, so
+ * snapshots should be short-lived. The writer spins only briefly and then parks, so a snapshot
+ * left open does not keep a core busy, and {@link #publish(long, TimeUnit)} gives up after a
+ * timeout instead of waiting for it forever. Transactions are shared by both replicas, but their indexes
+ * are not, so this takes about twice the memory of a {@link Journal}.
+ */
+
+public class ConcurrentJournal {
+    // times the writer spins waiting for the readers, and its shortest and longest parks after that
+    private static final int SPINS = 100;
+    private static final long MIN_PARK_NANOS = 1_000;
+    private static final long MAX_PARK_NANOS = 1_000_000;
+
+    private final Journal[] replicas;
+    // number of open snapshots of each replica
+    private final AtomicInteger[] readers;
+    private final long[] versions;
+    // replica used by the readers
+    private volatile int published;
+    // transactions not published yet, and the ones published last (missing in the other replica)
+    private List<Transaction> pending;
+    private List<Transaction> lastPublished;
+    private long version;
+
+    public ConcurrentJournal() {
+        this(Locale.getDefault());
+    }
+
+    public ConcurrentJournal(Locale locale) {
+        this(locale, ListTransactionStore::new);
+    }
+
+    /**
+     * Creates a concurrent journal whose replicas keep their transactions in the stores
+     * returned by the given supplier (e.g., {@code ColumnarTransactionStore::new}).
+     */
+    public ConcurrentJournal(Locale locale, Supplier<TransactionStore> stores) {
+        this.replicas = new Journal[] {
+                new Journal(locale, stores.get(), true), new Journal(locale, stores.get(), true)
+        };
+        this.readers = new AtomicInteger[] { new AtomicInteger(), new AtomicInteger() };
+        this.versions = new long[2];
+        this.pending = new ArrayList<>();
+        this.lastPublished = new ArrayList<>();
+    }
+
+    public Locale getLocale() {
+        return replicas[0].getLocale();
+    }
+
+    /**
+     * Adds a transaction, which readers will see once it is published. Only called by the writer.
+     */
+    public void addTransaction(Transaction transaction) {
+        pending.add(transaction);
+    }
+
+    /**
+     * Publishes the transactions added since the last time, all at once, so that the snapshots
+     * taken from now on include them. Only called by the writer.
+     */
+    public void publish() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        var standby = 1 - published;
+        awaitReaders(standby);
+        swap(standby);
+    }
+
+    /**
+     * Publishes the transactions added since the last time, like {@link #publish()}, but waits
+     * at most the given time for the snapshots of the previous version to be closed. Returns
+     * false if they were not, in which case the transactions are kept to be published later.
+     * Only called by the writer.
+     */
+    public boolean publish(long timeout, TimeUnit unit) throws InterruptedException {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        var standby = 1 - published;
+        if (!awaitReaders(standby, unit.toNanos(timeout))) {
+            return false;
+        }
+        swap(standby);
+        return true;
+    }
+
+    private void swap(int standby) {
+        var replica = replicas[standby];
+        lastPublished.forEach(replica::append);
+        pending.forEach(replica::append);
+        replica.prepareForReading();
+        versions[standby] = ++version;
+        // the volatile write makes the changes to the replica visible to the readers that read it
+        published = standby;
+        lastPublished = pending;
+        pending = new ArrayList<>();
+    }
+
+    /**
+     * Adds the given transactions and publishes them. Only called by the writer.
+     */
+    public void publish(List<Transaction> transactions) {
+        pending.addAll(transactions);
+        publish();
+    }
+
+    /**
+     * Runs the queries of both replicas in parallel on the given pool (see {@link Journal#setQueryPool}).
+     * Only called by the writer.
+     */
+    public void setQueryPool(ForkJoinPool pool, int threshold) {
+        for (var replica : replicas) {
+            replica.setQueryPool(pool, threshold);
+        }
+    }
+
+    /**
+     * Reports the queries of both replicas to the given metrics (see {@link Journal#setMetrics}). Only called by the writer.
+     */
+    public void setMetrics(Metrics metrics) {
+        for (var replica : replicas) {
+            replica.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the transactions published so far, which must be closed once done with it.
+     */
+    public Snapshot snapshot() {
+        while (true) {
+            var i = published;
+            readers[i].incrementAndGet();
+            // if the writer swapped the replicas in the meantime, it may be changing this one
+            if (published == i) {
+                return new Snapshot(this, i);
+            }
+            readers[i].decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs a query on a snapshot of the journal, and returns its result.
+     */
+    public <R> R read(Function<Journal, R> query) {
+        try (var snapshot = snapshot()) {
+            return query.apply(snapshot.getJournal());
+        }
+    }
+
+    private void awaitReaders(int replica) {
+        for (int attempt = 0; readers[replica].get() > 0; attempt++) {
+            pause(attempt, MAX_PARK_NANOS);
+        }
+    }
+
+    private boolean awaitReaders(int replica, long timeoutNanos) throws InterruptedException {
+        var deadline = System.nanoTime() + timeoutNanos;
+        for (int attempt = 0; readers[replica].get() > 0; attempt++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            var remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            pause(attempt, remaining);
+        }
+        return true;
+    }
+
+    // snapshots are usually closed soon, so the writer spins at first, and then parks for longer and longer
+    private static void pause(int attempt, long maxNanos) {
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            var nanos = MIN_PARK_NANOS << Math.min(attempt - SPINS, 10);
+            LockSupport.parkNanos(Math.min(nanos, maxNanos));
+        }
+    }
+
+    /**
+     * Represents a version of a concurrent journal, which does not change while it is open.
+     */
+    public static class Snapshot implements AutoCloseable {
+        private final ConcurrentJournal journal;
+        private final int replica;
+        private boolean closed;
+
+        private Snapshot(ConcurrentJournal journal, int replica) {
+            this.journal = journal;
+            this.replica = replica;
+        }
+
+        /**
+         * Returns the journal of this snapshot. It is read-only, and must not be used after closing the snapshot.
+         */
+        public Journal getJournal() {
+            if (closed) {
+                throw new IllegalStateException("Snapshot already closed");
+            }
+            return journal.replicas[replica];
+        }
+
+        /**
+         * Returns the number of times transactions had been published when this snapshot was taken.
+         */
+        public long getVersion() {
+            return journal.versions[replica];
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                journal.readers[replica].decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package core;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the positions of the transactions of a journal by date, so that a query for a
+ * range of dates only goes through the transactions in that range.
+ */
+
+class DateIndex {
+    private final NavigableMap<LocalDate, IntList> positions;
+    private LocalDate lastDate;
+    private IntList lastPositions;
+    private boolean inOrder;
+
+    DateIndex() {
+        this.positions = new TreeMap<>();
+        this.inOrder = true;
+    }
+
+    void add(LocalDate date, int position) {
+        // transactions usually come in date order, several on the same date, so the map is only searched for a new date
+        if (!date.equals(lastDate)) {
+            if (lastDate != null && date.isBefore(lastDate)) {
+                inOrder = false;
+            }
+            lastPositions = positions.computeIfAbsent(date, d -> new IntList());
+            lastDate = date;
+        }
+        lastPositions.add(position);
+    }
+
+    /**
+     * Returns the positions of the transactions between two dates (both included),
+     * in ascending order (the order they were added to the journal).
+     */
+    int[] getPositions(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) {
+            return new int[0];
+        }
+        var range = positions.subMap(start, true, end, true).values();
+        var size = 0;
+        for (var list : range) {
+            size += list.size();
+        }
+        var result = new int[size];
+        var position = 0;
+        for (var list : range) {
+            list.copyTo(result, position);
+            position += list.size();
+        }
+        // if the transactions were not added in date order, the positions of different dates are interleaved
+        if (!inOrder && range.size() > 1) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package core;
+
+/**
+ * Filter for the entries of a journal, given the position of their transaction and
+ * the index of the entry within it.
+ */
+
+interface EntryFilter {
+    EntryFilter ALL_ENTRIES = (position, entry) -> true;
+
+    boolean test(int position, int entry);
+
+    default EntryFilter and(EntryFilter other) {
+        if (this == ALL_ENTRIES) {
+            return other;
+        }
+        return (other == ALL_ENTRIES) ? this : (position, entry) -> test(position, entry) && other.test(position, entry);
+    }
+}
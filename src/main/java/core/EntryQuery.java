@@ -0,0 +1,550 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Represents a query over the entries of a journal, built by adding conditions on the
+ * transactions (date, status and payee) and on the entries (account, amount and currency).
+ * Conditions on different fields must all match, while several conditions on the same field
+ * match if any of them does (e.g., two payees, or two date ranges).
+ * <p>
+ * Each time it is run, the query is compiled into a single pass: the candidate transactions
+ * and entries are taken from the indexes of the journal (dates, payees and accounts), then
+ * the transaction conditions are tested before going through their entries, and only the
+ * matching entries are built.
+ * <p>
+ * Queries can also run in parallel on a fork/join pool: the candidates are split into chunks,
+ * each chunk computes a partial result (e.g., a partial sum) and the partial results are
+ * combined in order. Queries with fewer candidates than a threshold still run sequentially.
+ */
+
+public class EntryQuery {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 14;
+
+    private final TransactionStore store;
+    private final DateIndex dateIndex;
+    private final PostingIndex postingIndex;
+    // false while the entries of a lazy journal are not in the account index
+    private final boolean postingsIndexed;
+    private final CurrencyUnit defaultCurrency;
+    private ForkJoinPool pool;
+    private int parallelThreshold;
+    private final Metrics metrics;
+
+    private final List<DateRange> dateRanges;
+    private final List<TransactionStatus> statuses;
+    private final Set<Payee> payees;
+    private final List<AccountCondition> accountConditions;
+    private final Set<CurrencyUnit> currencies;
+    private final List<AmountRange> amountRanges;
+
+    EntryQuery(TransactionStore store, DateIndex dateIndex, PostingIndex postingIndex, boolean postingsIndexed,
+               CurrencyUnit defaultCurrency, ForkJoinPool pool, int parallelThreshold, Metrics metrics) {
+        this.store = store;
+        this.dateIndex = dateIndex;
+        this.postingIndex = postingIndex;
+        this.postingsIndexed = postingsIndexed;
+        this.defaultCurrency = defaultCurrency;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.metrics = metrics;
+        this.dateRanges = new ArrayList<>();
+        this.statuses = new ArrayList<>();
+        this.payees = new HashSet<>();
+        this.accountConditions = new ArrayList<>();
+        this.currencies = new HashSet<>();
+        this.amountRanges = new ArrayList<>();
+    }
+
+    /* ====================== */
+    /* Transaction conditions */
+    /* ====================== */
+
+    /**
+     * Matches the transactions between two dates (both included).
+     */
+    public EntryQuery between(LocalDate startDate, LocalDate endDate) {
+        dateRanges.add(new DateRange(startDate, endDate));
+        return this;
+    }
+
+    public EntryQuery on(LocalDate date) {
+        return between(date, date);
+    }
+
+    /**
+     * Matches the transactions with the given status (null for the transactions without one).
+     */
+    public EntryQuery withStatus(TransactionStatus status) {
+        statuses.add(status);
+        return this;
+    }
+
+    public EntryQuery withPayee(Payee payee) {
+        payees.add(payee);
+        return this;
+    }
+
+    /* ================ */
+    /* Entry conditions */
+    /* ================ */
+
+    public EntryQuery withAccount(Account account) {
+        accountConditions.add(new AccountCondition(AccountMatch.EQUALS, account.getName()));
+        return this;
+    }
+
+    /**
+     * Matches the accounts whose name starts with the given text (e.g., "Expenses:" for all the expenses).
+     */
+    public EntryQuery withAccountPrefix(String prefix) {
+        accountConditions.add(new AccountCondition(AccountMatch.PREFIX, prefix));
+        return this;
+    }
+
+    /**
+     * Matches the accounts whose name contains the given text.
+     */
+    public EntryQuery withAccountContaining(String text) {
+        accountConditions.add(new AccountCondition(AccountMatch.CONTAINS, text));
+        return this;
+    }
+
+    public EntryQuery withCurrency(CurrencyUnit currency) {
+        currencies.add(currency);
+        return this;
+    }
+
+    public EntryQuery withAmount(Money amount) {
+        return withAmountBetween(amount, amount);
+    }
+
+    /**
+     * Matches the amounts between two amounts (both included) of the same currency.
+     */
+    public EntryQuery withAmountBetween(Money min, Money max) {
+        amountRanges.add(new AmountRange(min, max));
+        return this;
+    }
+
+    /* ========= */
+    /* Execution */
+    /* ========= */
+
+    /**
+     * Runs the query in parallel on the given pool when it has at least the given number of
+     * candidates (transactions or entries), or sequentially if the pool is null.
+     */
+    public EntryQuery inParallel(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.parallelThreshold = threshold;
+        return this;
+    }
+
+    public EntryQuery inParallel(ForkJoinPool pool) {
+        return inParallel(pool, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /* ======= */
+    /* Results */
+    /* ======= */
+
+    /**
+     * Returns the matching entries, in the order of the journal.
+     */
+    public List<Entry> getEntries() {
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        var plan = compile();
+        List<Entry> entries = collect(plan, ArrayList::new, (list, position, entry) -> list.add(store.getEntry(position, entry)), List::addAll);
+        endQuery(Metrics.Query.ENTRY_FILTER, startTime, event, "getEntries", plan, entries.size());
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Returns the transactions with at least one matching entry, in the order of the journal.
+     */
+    public List<Transaction> getTransactions() {
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        var plan = compile();
+        var positions = getTransactionPositions(plan);
+        var transactions = new ArrayList<Transaction>(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            transactions.add(store.get(positions.get(i)));
+        }
+        endQuery(Metrics.Query.ENTRY_FILTER, startTime, event, "getTransactions", plan, transactions.size());
+        return Collections.unmodifiableList(transactions);
+    }
+
+    /**
+     * Returns the positions of the transactions with at least one matching entry, in ascending order.
+     */
+    IntList getTransactionPositions() {
+        return getTransactionPositions(compile());
+    }
+
+    private IntList getTransactionPositions(Plan plan) {
+        return collect(plan, IntList::new, (list, position, entry) -> addPosition(list, position), (left, right) -> {
+            // the entries of a transaction may have been split between two chunks
+            for (int i = 0; i < right.size(); i++) {
+                addPosition(left, right.get(i));
+            }
+        });
+    }
+
+    /**
+     * Visits the matching entries sequentially, in the order of the journal, without collecting them.
+     */
+    void forEach(EntryVisitor visitor) throws IOException {
+        var plan = compile();
+        try {
+            plan.run(0, plan.size(), null, (result, position, entry) -> {
+                try {
+                    visitor.visit(position, entry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void addPosition(IntList positions, int position) {
+        if (positions.isEmpty() || positions.get(positions.size() - 1) != position) {
+            positions.add(position);
+        }
+    }
+
+    public int count() {
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        var plan = compile();
+        var count = collect(plan, () -> new int[1], (partial, position, entry) -> partial[0]++, (left, right) -> left[0] += right[0]);
+        endQuery(Metrics.Query.ENTRY_FILTER, startTime, event, "count", plan, count[0]);
+        return count[0];
+    }
+
+    /**
+     * Returns the sum of the matching entries in the default currency of the journal.
+     */
+    public Money getBalance() {
+        return getBalance(defaultCurrency);
+    }
+
+    /**
+     * Returns the sum of the matching entries in the given currency (entries in other currencies are skipped).
+     */
+    public Money getBalance(CurrencyUnit currency) {
+        return getBalances().getTotal(currency);
+    }
+
+    /**
+     * Returns the sums of the matching entries in each of their currencies.
+     */
+    public AmountAccumulator getBalances() {
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        var plan = compile();
+        var balances = collect(plan, AmountAccumulator::new,
+                (partial, position, entry) -> store.addAmount(position, entry, partial),
+                AmountAccumulator::add);
+        endQuery(Metrics.Query.BALANCE, startTime, event, "getBalances", plan, balances.size());
+        return balances;
+    }
+
+    private void endQuery(Metrics.Query kind, long startTime, QueryEvent event, String method, Plan plan, long results) {
+        metrics.queried(kind, startTime);
+        event.end(kind, method, this, plan.scanned, results);
+    }
+
+    /**
+     * Describes the conditions of the query (e.g., "payee X and account starting with Y").
+     */
+    @Override
+    public String toString() {
+        var conditions = new ArrayList<String>();
+        dateRanges.forEach(range -> conditions.add("between " + range.start() + " and " + range.end()));
+        statuses.forEach(status -> conditions.add("status " + status));
+        payees.forEach(payee -> conditions.add("payee " + payee.name()));
+        accountConditions.forEach(condition -> conditions.add(condition.toString()));
+        currencies.forEach(currency -> conditions.add("currency " + currency));
+        amountRanges.forEach(range -> conditions.add("amount between " + range.min() + " and " + range.max()));
+        return conditions.isEmpty() ? "all entries" : String.join(" and ", conditions);
+    }
+
+    /**
+     * Accumulates the matching entries into a mutable result, either in a single pass or, for
+     * large queries on a pool, into a partial result for each chunk of candidates, which are
+     * then combined in order (the right result into the left one).
+     */
+    private <R> R collect(Plan plan, Supplier<R> supplier, Accumulator<R> accumulator, BiConsumer<R, R> combiner) {
+        var size = plan.size();
+        if (pool == null || size < parallelThreshold) {
+            var result = supplier.get();
+            plan.run(0, size, result, accumulator);
+            return result;
+        }
+        var chunkSize = Math.max(1, size / (pool.getParallelism() * 4));
+        return pool.invoke(new Chunk<>(plan, 0, size, chunkSize, supplier, accumulator, combiner));
+    }
+
+    /* =========== */
+    /* Compilation */
+    /* =========== */
+
+    private Plan compile() {
+        // candidate transactions, from the date and payee indexes
+        int[] positions = null;
+        if (!dateRanges.isEmpty()) {
+            positions = PostingIndex.union(dateRanges.stream()
+                    .map(range -> dateIndex.getPositions(range.start(), range.end()))
+                    .toArray(int[][]::new));
+        }
+        if (!payees.isEmpty()) {
+            var payeePositions = PostingIndex.union(payees.stream()
+                    .map(postingIndex::getTransactions)
+                    .toArray(int[][]::new));
+            positions = (positions != null) ? PostingIndex.intersect(positions, payeePositions) : payeePositions;
+        }
+        // candidate entries, from the account index
+        int[] postings = null;
+        if (!accountConditions.isEmpty() && postingsIndexed) {
+            postings = getPostings();
+            if (positions != null) {
+                postings = postingIndex.getPostings(postings, positions);
+            }
+        }
+        IntPredicate transactionFilter = statuses.isEmpty() ? null : position -> statuses.contains(store.getStatus(position));
+        var entryFilter = compileAmountFilter();
+        if (!accountConditions.isEmpty() && !postingsIndexed) {
+            // without the account index, the accounts are tested on the entries of the candidate transactions
+            EntryFilter accountFilter = (position, entry) -> matchesAccount(store.getAccount(position, entry).getName());
+            entryFilter = accountFilter.and(entryFilter);
+        }
+        return new Plan(positions, postings, transactionFilter, entryFilter);
+    }
+
+    /**
+     * Returns the postings of the accounts that match any account condition, looking up exact
+     * names and prefixes in the account index, and only testing every account for the rest.
+     */
+    private int[] getPostings() {
+        var postings = new ArrayList<int[]>();
+        var contains = new ArrayList<AccountCondition>();
+        for (var condition : accountConditions) {
+            switch (condition.match()) {
+                case EQUALS -> postings.add(postingIndex.getPostings(condition.text()));
+                case PREFIX -> postings.add(postingIndex.getPostingsByPrefix(condition.text()));
+                case CONTAINS -> contains.add(condition);
+            }
+        }
+        if (!contains.isEmpty()) {
+            postings.add(postingIndex.getPostings(name -> contains.stream().anyMatch(condition -> condition.test(name))));
+        }
+        return PostingIndex.union(postings.toArray(int[][]::new));
+    }
+
+    private boolean matchesAccount(String name) {
+        for (var condition : accountConditions) {
+            if (condition.test(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EntryFilter compileAmountFilter() {
+        if (currencies.isEmpty() && amountRanges.isEmpty()) {
+            return EntryFilter.ALL_ENTRIES;
+        }
+        // the amount is only built once for all the amount conditions
+        return (position, entry) -> {
+            var amount = store.getAmount(position, entry);
+            if (amount == null || (!currencies.isEmpty() && !currencies.contains(amount.getCurrencyUnit()))) {
+                return false;
+            }
+            if (amountRanges.isEmpty()) {
+                return true;
+            }
+            for (var range : amountRanges) {
+                if (range.contains(amount)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Compiled query: where the candidates come from, and the conditions left to test on them.
+     */
+    private class Plan {
+        private final int[] positions;
+        private final int[] postings;
+        private final IntPredicate transactionFilter;
+        private final EntryFilter entryFilter;
+        // candidate entries gone through, and the ones that matched, by all the runs of the plan
+        private long scanned;
+        private long matching;
+
+        private Plan(int[] positions, int[] postings, IntPredicate transactionFilter, EntryFilter entryFilter) {
+            this.positions = positions;
+            this.postings = postings;
+            this.transactionFilter = transactionFilter;
+            this.entryFilter = entryFilter;
+        }
+
+        /**
+         * Returns the number of candidates: entries when they come from the account index, or transactions.
+         */
+        private int size() {
+            if (postings != null) {
+                return postings.length;
+            }
+            return (positions != null) ? positions.length : store.size();
+        }
+
+        /**
+         * Accumulates the matching entries of the candidates in the given range.
+         */
+        private <R> void run(int from, int to, R result, Accumulator<R> accumulator) {
+            var matching = 0;
+            if (postings != null) {
+                for (int i = from; i < to; i++) {
+                    var position = postingIndex.getTransaction(postings[i]);
+                    var entry = postingIndex.getEntry(postings[i]);
+                    if ((transactionFilter == null || transactionFilter.test(position)) && entryFilter.test(position, entry)) {
+                        accumulator.accept(result, position, entry);
+                        matching++;
+                    }
+                }
+                addScanned(to - from, matching);
+                return;
+            }
+            var scanned = 0L;
+            for (int i = from; i < to; i++) {
+                var position = (positions != null) ? positions[i] : i;
+                if (transactionFilter != null && !transactionFilter.test(position)) {
+                    continue;
+                }
+                var entries = store.getEntryCount(position);
+                scanned += entries;
+                for (int entry = 0; entry < entries; entry++) {
+                    if (entryFilter.test(position, entry)) {
+                        accumulator.accept(result, position, entry);
+                        matching++;
+                    }
+                }
+            }
+            addScanned(scanned, matching);
+        }
+
+        // chunks of a parallel query run at the same time
+        private synchronized void addScanned(long entries, long matchingEntries) {
+            scanned += entries;
+            matching += matchingEntries;
+            metrics.scanned(entries, matchingEntries);
+        }
+    }
+
+    /**
+     * Task that runs a range of candidates of a plan, splitting it in halves down to the chunk size.
+     */
+    @SuppressWarnings("serial") // tasks are never serialized
+    private static class Chunk<R> extends RecursiveTask<R> {
+        private final EntryQuery.Plan plan;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final Supplier<R> supplier;
+        private final Accumulator<R> accumulator;
+        private final BiConsumer<R, R> combiner;
+
+        private Chunk(EntryQuery.Plan plan, int from, int to, int chunkSize,
+                      Supplier<R> supplier, Accumulator<R> accumulator, BiConsumer<R, R> combiner) {
+            this.plan = plan;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= chunkSize) {
+                var result = supplier.get();
+                plan.run(from, to, result, accumulator);
+                return result;
+            }
+            var middle = (from + to) >>> 1;
+            var left = new Chunk<>(plan, from, middle, chunkSize, supplier, accumulator, combiner);
+            left.fork();
+            var right = new Chunk<>(plan, middle, to, chunkSize, supplier, accumulator, combiner).compute();
+            var result = left.join();
+            combiner.accept(result, right);
+            return result;
+        }
+    }
+
+    /**
+     * Adds a matching entry, given the position of its transaction and its index within it, to a result.
+     */
+    private interface Accumulator<R> {
+        void accept(R result, int position, int entry);
+    }
+
+    /**
+     * Visitor of the matching entries, given the position of their transaction and their index within it.
+     */
+    interface EntryVisitor {
+        void visit(int position, int entry) throws IOException;
+    }
+
+    private record DateRange(LocalDate start, LocalDate end) {
+    }
+
+    private enum AccountMatch {
+        EQUALS, PREFIX, CONTAINS
+    }
+
+    private record AccountCondition(AccountMatch match, String text) {
+        boolean test(String name) {
+            return switch (match) {
+                case EQUALS -> name.equals(text);
+                case PREFIX -> name.startsWith(text);
+                case CONTAINS -> name.contains(text);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return switch (match) {
+                case EQUALS -> "account " + text;
+                case PREFIX -> "account starting with " + text;
+                case CONTAINS -> "account containing " + text;
+            };
+        }
+    }
+
+    private record AmountRange(Money min, Money max) {
+        boolean contains(Money amount) {
+            return amount.getCurrencyUnit().equals(min.getCurrencyUnit()) &&
+                    amount.compareTo(min) >= 0 && amount.compareTo(max) <= 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, to avoid boxing positions in the journal indexes.
+ */
+
+class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        this.values = new int[capacity];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the values to an array, starting at the given position.
+     */
+    void copyTo(int[] array, int position) {
+        System.arraycopy(values, 0, array, position, size);
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -2,12 +2,12 @@ package core;
 
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
-import org.joda.money.format.MoneyAmountStyle;
-import org.joda.money.format.MoneyFormatterBuilder;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -15,16 +15,50 @@ import java.util.stream.Collectors;
  */
 
 public class Journal {
-    private final List<Transaction> transactions;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private final TransactionStore store;
     private final Locale locale;
+    private final AccountTree accountTree;
+    private final DateIndex dateIndex;
+    private final PostingIndex postingIndex;
+    private final AccountBalances balances;
+    // number of transactions of the store already in the date and payee indexes, and in all the indexes
+    private int headersIndexedSize;
+    private int indexedSize;
+    // true for the replicas of a concurrent journal, which are only changed by their writer
+    private final boolean readOnly;
+    private ForkJoinPool queryPool;
+    private int parallelThreshold;
+    private Metrics metrics;
 
     public Journal() {
         this(Locale.getDefault());
     }
 
     public Journal(Locale locale) {
-        this.transactions = new ArrayList<>();
+        this(locale, new ListTransactionStore());
+    }
+
+    /**
+     * Creates a journal that keeps its transactions in the given store
+     * (e.g., a {@link ColumnarTransactionStore} to use less memory). The transactions
+     * already in the store are indexed the first time the journal is queried.
+     */
+    public Journal(Locale locale, TransactionStore store) {
+        this(locale, store, false);
+    }
+
+    Journal(Locale locale, TransactionStore store, boolean readOnly) {
+        this.store = store;
+        this.readOnly = readOnly;
         this.locale = locale;
+        this.accountTree = new AccountTree();
+        this.dateIndex = new DateIndex();
+        this.postingIndex = new PostingIndex();
+        this.balances = new AccountBalances();
+        this.parallelThreshold = EntryQuery.DEFAULT_PARALLEL_THRESHOLD;
+        this.metrics = Metrics.NONE;
     }
 
     public Locale getLocale() {
@@ -36,24 +70,172 @@ public class Journal {
     }
 
     public void addTransaction(Transaction transaction) {
-        transactions.add(transaction);
+        if (readOnly) {
+            throw new UnsupportedOperationException("Snapshots of a concurrent journal are read-only");
+        }
+        append(transaction);
     }
 
+    void append(Transaction transaction) {
+        var position = store.size();
+        store.add(transaction);
+        if (headersIndexedSize == position) {
+            indexHeader(position, transaction.date(), transaction.payee());
+            headersIndexedSize++;
+        }
+        if (indexedSize == position) {
+            indexEntries(position);
+            indexedSize++;
+        }
+    }
+
+    /**
+     * Adds the transactions of the store that are not indexed yet to the indexes.
+     */
+    private void ensureIndexed() {
+        ensureHeadersIndexed();
+        while (indexedSize < store.size()) {
+            indexEntries(indexedSize);
+            indexedSize++;
+        }
+    }
+
+    /**
+     * Adds the transactions of the store that are not indexed yet to the date and payee indexes,
+     * which do not need their entries.
+     */
+    private void ensureHeadersIndexed() {
+        while (headersIndexedSize < store.size()) {
+            indexHeader(headersIndexedSize, store.getDate(headersIndexedSize), store.getPayee(headersIndexedSize));
+            headersIndexedSize++;
+        }
+    }
+
+    // true if the entries of a lazy store are not indexed yet, so queries should not need them
+    private boolean isLazilyIndexed() {
+        return store.isLazy() && indexedSize < store.size();
+    }
+
+    /**
+     * Indexes every transaction and sorts the balance histories, so that reading the journal
+     * no longer changes it, and several threads can read it at the same time.
+     */
+    void prepareForReading() {
+        ensureIndexed();
+        balances.sort();
+    }
+
+    private void indexHeader(int position, LocalDate date, Payee payee) {
+        dateIndex.add(date, position);
+        postingIndex.addPayee(position, payee);
+    }
+
+    // reads the entries field by field, so stores that keep them in columns do not build any objects
+    private void indexEntries(int position) {
+        postingIndex.addPostings(position, store);
+        var day = (int) store.getDate(position).toEpochDay();
+        var entryCount = store.getEntryCount(position);
+        for (int entry = 0; entry < entryCount; entry++) {
+            var currency = store.getCurrency(position, entry);
+            if (currency == null) {
+                continue;
+            }
+            var account = store.getAccount(position, entry);
+            long amountMinor;
+            try {
+                amountMinor = store.getAmountMinor(position, entry);
+            } catch (ArithmeticException e) {
+                var amount = store.getAmount(position, entry);
+                accountTree.post(account, amount);
+                balances.post(day, account, amount);
+                continue;
+            }
+            accountTree.post(account, currency, amountMinor);
+            balances.post(day, account, currency, amountMinor);
+        }
+    }
+
+    /**
+     * Returns the transactions of the journal. The list cannot be modified, so that
+     * transactions are only added through {@link #addTransaction(Transaction)}.
+     */
     public List<Transaction> getTransactions() {
-        return transactions;
+        return new TransactionList();
+    }
+
+    public AccountTree getAccountTree() {
+        ensureIndexed();
+        return accountTree;
+    }
+
+    /**
+     * Returns a new query over the entries of the journal, e.g.:
+     * {@code journal.query().withAccountPrefix("Expenses:").between(start, end).getBalance()}.
+     * On a journal read lazily, queries only get the entries of the transactions
+     * that match their date and payee conditions (see {@link TransactionStore#isLazy()}).
+     */
+    public EntryQuery query() {
+        if (store.isLazy()) {
+            ensureHeadersIndexed();
+        } else {
+            ensureIndexed();
+        }
+        var postingsIndexed = indexedSize == store.size();
+        return new EntryQuery(store, dateIndex, postingIndex, postingsIndexed, getDefaultCurrency(), queryPool, parallelThreshold, metrics);
+    }
+
+    /**
+     * Runs the queries of the journal, including the filter and report methods, in parallel on
+     * the given pool when they go through at least the given number of transactions or entries.
+     * A null pool (the default) runs them sequentially.
+     */
+    public void setQueryPool(ForkJoinPool pool, int threshold) {
+        this.queryPool = pool;
+        this.parallelThreshold = threshold;
+    }
+
+    public void setQueryPool(ForkJoinPool pool) {
+        setQueryPool(pool, EntryQuery.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Reports the latencies of the queries of the journal, and the entries they go through, to the given metrics.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
     }
 
     /* =============== */
     /* Balance methods */
     /* =============== */
 
+    /**
+     * Returns the balance in the default currency of all the accounts whose name contains the
+     * given text, using the running balances kept for each account.
+     */
     public Money getBalance(String accountName) {
-        return transactions.stream()
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(accountName))
-                .map(Entry::amount)
-                .reduce(Money.zero(getDefaultCurrency()), Money::plus);
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        ensureIndexed();
+        var balance = balances.getBalance(accountName, getDefaultCurrency());
+        endBalanceQuery(event, startTime, "getBalance", accountName, accountName, 1);
+        return balance;
+    }
+
+    /**
+     * Returns the balances in each currency of all the accounts whose name contains the given text.
+     */
+    public AmountAccumulator getBalances(String accountName) {
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        ensureIndexed();
+        var result = balances.getBalances(accountName);
+        endBalanceQuery(event, startTime, "getBalances", accountName, accountName, result.size());
+        return result;
+    }
+
+    public AmountAccumulator getBalances(Account account) {
+        return getBalances(account.getName());
     }
 
     public Money getBalance(Account account) {
@@ -69,23 +251,47 @@ public class Journal {
         return getBalanceAsString(account.getName());
     }
 
+    /**
+     * Returns the balance in the default currency between two dates (both included) of all the
+     * accounts whose name contains the given text, using the history of balances kept for each account.
+     */
     public Money getBalance(String accountName, String startDate, String endDate) {
-        var start = LocalDate.parse(startDate, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        var end = LocalDate.parse(endDate, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-
-        return transactions.stream()
-                .filter(transaction -> !(transaction.date().isBefore(start) || transaction.date().isAfter(end)))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(e -> e.account().getName().contains(accountName))
-                .map(Entry::amount)
-                .reduce(Money.zero(getDefaultCurrency()), Money::plus);
+        var start = LocalDate.parse(startDate, DATE_FORMATTER);
+        var end = LocalDate.parse(endDate, DATE_FORMATTER);
+        if (isLazilyIndexed()) {
+            // only the transactions between both dates are parsed, instead of the whole journal
+            return query().withAccountContaining(accountName).between(start, end).getBalance();
+        }
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        ensureIndexed();
+        var balance = balances.getBalance(accountName, start, end, getDefaultCurrency());
+        endBalanceQuery(event, startTime, "getBalance", accountName, new DateFilter(accountName, startDate, endDate), 1);
+        return balance;
     }
 
     public Money getBalance(Account account, String startDate, String endDate) {
         return getBalance(account.getName(), startDate, endDate);
     }
 
+    /**
+     * Returns the balances in each currency between two dates (both included) of all the accounts
+     * whose name contains the given text.
+     */
+    public AmountAccumulator getBalances(String accountName, String startDate, String endDate) {
+        var start = LocalDate.parse(startDate, DATE_FORMATTER);
+        var end = LocalDate.parse(endDate, DATE_FORMATTER);
+        if (isLazilyIndexed()) {
+            return query().withAccountContaining(accountName).between(start, end).getBalances();
+        }
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        ensureIndexed();
+        var result = balances.getBalances(accountName, start, end);
+        endBalanceQuery(event, startTime, "getBalances", accountName, new DateFilter(accountName, startDate, endDate), result.size());
+        return result;
+    }
+
     public String getBalanceAsString(String accountName, String startDate, String endDate) {
         var balance = getBalance(accountName, startDate,endDate);
         return formatAmount(balance);
@@ -96,32 +302,100 @@ public class Journal {
         return formatAmount(balance);
     }
 
+    /**
+     * Returns the balance in the default currency of every account at the end of the given date
+     * (e.g., for a trial balance).
+     */
+    public Map<Account, Money> getBalancesAsOf(String date) {
+        var day = LocalDate.parse(date, DATE_FORMATTER);
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        ensureIndexed();
+        var result = balances.getBalances(day, getDefaultCurrency());
+        metrics.queried(Metrics.Query.BALANCE, startTime);
+        event.end(Metrics.Query.BALANCE, "getBalancesAsOf", date, result.size(), result.size());
+        return result;
+    }
+
+    private void endBalanceQuery(QueryEvent event, long startTime, String method, String accountName, Object filter, int results) {
+        metrics.queried(Metrics.Query.BALANCE, startTime);
+        event.end();
+        // the matching accounts are only counted for the flight recorder
+        if (event.shouldCommit()) {
+            event.commit(Metrics.Query.BALANCE, method, filter, balances.countMatchingHistories(accountName), results);
+        }
+    }
+
+    /**
+     * Conditions of a query between two dates, only turned into text for the flight recorder.
+     */
+    private record DateFilter(Object filter, String startDate, String endDate) {
+        @Override
+        public String toString() {
+            return ((filter != null) ? describe(filter) + " " : "") + "between " + startDate + " and " + endDate;
+        }
+    }
+
     private String formatAmount(Money amount) {
-        var formatter = new MoneyFormatterBuilder()
-                .appendAmount(MoneyAmountStyle.of(locale))
-                .appendLiteral(" ")
-                .appendCurrencySymbolLocalized()
-                .toFormatter();
-        return formatter.print(amount);
+        return ReportRenderer.getFormatter(locale).print(amount);
+    }
+
+    /**
+     * Returns the balance in the default currency of an account and all its child accounts, given its full name
+     * (e.g., "Expenses:Restaurant" includes "Expenses:Restaurant:Food", but not "Expenses:Restaurants").
+     */
+    public Money getSubtreeBalance(String accountName) {
+        var startTime = metrics.startTime();
+        var event = QueryEvent.start();
+        var node = getAccountTree().getNode(accountName);
+        var balance = (node != null) ? node.getBalance(getDefaultCurrency()) : Money.zero(getDefaultCurrency());
+        metrics.queried(Metrics.Query.BALANCE, startTime);
+        event.end(Metrics.Query.BALANCE, "getSubtreeBalance", accountName, (node != null) ? 1 : 0, 1);
+        return balance;
+    }
+
+    public Money getSubtreeBalance(Account account) {
+        return getSubtreeBalance(account.getName());
+    }
+
+    /**
+     * Returns a hierarchical balance report of all the accounts, where each account
+     * shows the balance of its subtree.
+     */
+    public String getBalanceTreeReport() {
+        return toString("getBalanceTreeReport", null, this::writeBalanceTreeReport);
+    }
+
+    /**
+     * Writes the hierarchical balance report (see {@link #getBalanceTreeReport()}) to the given output.
+     */
+    public void writeBalanceTreeReport(Appendable output) throws IOException {
+        var startTime = metrics.startTime();
+        var renderer = new ReportRenderer(locale, output);
+        for (var node : getAccountTree().getRoots()) {
+            writeBalanceTree(renderer, node, 0);
+        }
+        renderer.appendSeparator(20);
+        for (var total : getTotals(accountTree.getBalances())) {
+            renderer.appendTreeTotal(total);
+        }
+        metrics.queried(Metrics.Query.REPORT, startTime);
     }
 
-    public String getBalanceReport(String accountName) {
-        var report = new StringBuilder();
-        var entries = transactions.stream()
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(e -> e.account().getName().contains(accountName))
-                .toList();
-        for (var entry : entries) {
-            var name = entry.account().getName();
-            var amount = formatAmount(entry.amount());
-            report.append(String.format("  %s", amount)).append(String.format("  %s\n", name));
+    private void writeBalanceTree(ReportRenderer renderer, AccountTree.Node node, int depth) throws IOException {
+        // an account with balances in several currencies shows one per line, with the name on the last one
+        var balances = getTotals(node.getBalances());
+        for (int i = 0; i < balances.size() - 1; i++) {
+            renderer.appendTreeTotal(balances.get(i));
         }
-        report.append("-----------------------------------------------------\n");
-        var balance = formatAmount(getBalance(accountName));
-        report.append(String.format("  %s\n", balance));
+        renderer.appendTreeLine(balances.get(balances.size() - 1), depth, node.getName());
+        for (var child : node.getChildren()) {
+            writeBalanceTree(renderer, child, depth + 1);
+        }
+    }
 
-        return report.toString();
+    public String getBalanceReport(String accountName) {
+        return toString("getBalanceReport", accountName, output -> writeBalanceReport(accountName, output));
     }
 
     public String getBalanceReport(Account account) {
@@ -129,30 +403,99 @@ public class Journal {
     }
 
     public String getBalanceReport(String accountName, String startDate, String endDate) {
-        var start = LocalDate.parse(startDate, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        var end = LocalDate.parse(endDate, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        return toString("getBalanceReport", new DateFilter(accountName, startDate, endDate),
+                output -> writeBalanceReport(accountName, startDate, endDate, output));
+    }
 
-        var report = new StringBuilder();
-        var entries = transactions.stream()
-                .filter(transaction -> !(transaction.date().isBefore(start) || transaction.date().isAfter(end)))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(accountName))
-                .toList();
-        for (var entry : entries) {
-            var name = entry.account().getName();
-            var amount = formatAmount(entry.amount());
-            report.append(String.format("  %s", amount)).append(String.format("  %s\n", name));
+    public String getBalanceReport(Account account, String startDate, String endDate) {
+        return getBalanceReport(account.getName(), startDate, endDate);
+    }
+
+    /**
+     * Writes the balance report of the accounts whose name contains the given text to the given
+     * output, one entry at a time, so the report is never built in memory as a whole.
+     */
+    public void writeBalanceReport(String accountName, Appendable output) throws IOException {
+        var startTime = metrics.startTime();
+        // the totals come from the balances of the accounts, which need every entry indexed
+        ensureIndexed();
+        var query = query().withAccountContaining(accountName);
+        writeBalanceReport(query, balances.getBalances(accountName), output, startTime);
+    }
+
+    public void writeBalanceReport(Account account, Appendable output) throws IOException {
+        writeBalanceReport(account.getName(), output);
+    }
+
+    public void writeBalanceReport(String accountName, String startDate, String endDate, Appendable output) throws IOException {
+        var start = LocalDate.parse(startDate, DATE_FORMATTER);
+        var end = LocalDate.parse(endDate, DATE_FORMATTER);
+        var startTime = metrics.startTime();
+        ensureIndexed();
+        var query = query().withAccountContaining(accountName).between(start, end);
+        writeBalanceReport(query, balances.getBalances(accountName, start, end), output, startTime);
+    }
+
+    public void writeBalanceReport(Account account, String startDate, String endDate, Appendable output) throws IOException {
+        writeBalanceReport(account.getName(), startDate, endDate, output);
+    }
+
+    private void writeBalanceReport(EntryQuery query, AmountAccumulator balances, Appendable output, long startTime) throws IOException {
+        var renderer = new ReportRenderer(locale, output);
+        query.forEach((position, entry) ->
+                renderer.appendBalanceLine(store.getAmount(position, entry), store.getAccount(position, entry).getName()));
+        renderer.appendSeparator(53);
+        for (var total : getTotals(balances.getTotals())) {
+            renderer.appendTotal(total);
         }
-        report.append("-----------------------------------------------------\n");
-        var balance = formatAmount(getBalance(accountName, startDate, endDate));
-        report.append(String.format("  %s\n", balance));
+        metrics.queried(Metrics.Query.REPORT, startTime);
+    }
+
+    // the totals of a report, one per currency (zero in the default currency if there are none)
+    private List<Money> getTotals(List<Money> totals) {
+        return totals.isEmpty() ? List.of(Money.zero(getDefaultCurrency())) : totals;
+    }
 
+    /**
+     * Renders a report into a string, recording it for the flight recorder (see {@link ReportEvent})
+     * with the given name and conditions.
+     */
+    private static String toString(String name, Object filter, ReportWriter writer) {
+        var event = new ReportEvent();
+        event.begin();
+        var report = new StringBuilder();
+        try {
+            writer.write(report);
+        } catch (IOException e) {
+            // a StringBuilder does not throw IOException
+            throw new RuntimeException(e);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.report = name;
+            event.filter = describe(filter);
+            event.outputSize = report.length();
+            event.commit();
+        }
         return report.toString();
     }
 
-    public String getBalanceReport(Account account, String startDate, String endDate) {
-        return getBalanceReport(account.getName(), startDate, endDate);
+    /**
+     * Describes the conditions of a query or a report (accounts and payees by their names).
+     */
+    private static String describe(Object filter) {
+        if (filter instanceof Account account) {
+            return account.getName();
+        } else if (filter instanceof Payee payee) {
+            return payee.name();
+        } else if (filter instanceof List<?> list) {
+            return list.stream().map(Journal::describe).collect(Collectors.joining(", "));
+        }
+        return String.valueOf(filter);
+    }
+
+    private interface ReportWriter {
+        void write(Appendable output) throws IOException;
     }
 
     /* ============================= */
@@ -160,78 +503,95 @@ public class Journal {
     /* ============================= */
 
     protected Set<Transaction> getTransactions(Account account) {
-        return getTransactions().stream()
-                .filter(transaction -> accountInTransaction(account, transaction))
-                .collect(Collectors.toCollection(HashSet::new));
+        return new HashSet<>(query().withAccount(account).getTransactions());
     }
 
+    /**
+     * Returns the transactions with an entry of any of the accounts, in a single query
+     * so that every transaction is only built once.
+     */
     public Set<Transaction> getTransactions(List<Account> accounts) {
-        return accounts.stream()
-                .flatMap(account -> getTransactions(account).stream())
-                .collect(Collectors.toCollection(HashSet::new));
+        var query = query();
+        accounts.forEach(query::withAccount);
+        return accounts.isEmpty() ? new HashSet<>() : new HashSet<>(query.getTransactions());
     }
 
     public Set<Transaction> getTransactions(Payee payee) {
-        return getTransactions().stream()
-                .filter(transaction -> payeeInTransaction(payee, transaction))
-                .collect(Collectors.toCollection(HashSet::new));
+        return new HashSet<>(query().withPayee(payee).getTransactions());
     }
 
     public Set<Transaction> getTransactions(String startDate, String endDate) {
-        var start = LocalDate.parse(startDate, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        var end = LocalDate.parse(endDate, DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-
-        return getTransactions().stream()
-                .filter(transaction -> !(transaction.date().isBefore(start) || transaction.date().isAfter(end)))
-                .collect(Collectors.toCollection(HashSet::new));
+        var start = LocalDate.parse(startDate, DATE_FORMATTER);
+        var end = LocalDate.parse(endDate, DATE_FORMATTER);
+        return new HashSet<>(query().between(start, end).getTransactions());
     }
 
     public String getTransactionReport(Account account) {
-        return getReport(getTransactions(account));
+        return toString("getTransactionReport", account, output -> writeTransactionReport(account, output));
     }
 
     public String getTransactionReport(List<Account> accounts) {
-        return getReport(getTransactions(accounts));
+        return toString("getTransactionReport", accounts, output -> writeTransactionReport(accounts, output));
     }
 
     public String getTransactionReport(Payee payee) {
-        return getReport(getTransactions(payee));
+        return toString("getTransactionReport", payee, output -> writeTransactionReport(payee, output));
     }
 
     public String getTransactionReport(String startDate, String endDate) {
-        return getReport(getTransactions(startDate, endDate));
+        return toString("getTransactionReport", new DateFilter(null, startDate, endDate),
+                output -> writeTransactionReport(startDate, endDate, output));
     }
 
-    private String getReport(Set<Transaction> transactions) {
-        var report = new StringBuilder();
-        for (var transaction : transactions) {
-            report.append(getHeader(transaction));
-            report.append(getEntries(transaction));
+    /**
+     * Writes the report of the transactions with an entry of the given account to the given
+     * output, one transaction at a time, in the order of the journal.
+     */
+    public void writeTransactionReport(Account account, Appendable output) throws IOException {
+        writeTransactionReport(query().withAccount(account), output);
+    }
+
+    public void writeTransactionReport(List<Account> accounts, Appendable output) throws IOException {
+        if (accounts.isEmpty()) {
+            return;
         }
-        return report.toString();
+        var query = query();
+        accounts.forEach(query::withAccount);
+        writeTransactionReport(query, output);
+    }
+
+    public void writeTransactionReport(Payee payee, Appendable output) throws IOException {
+        writeTransactionReport(query().withPayee(payee), output);
+    }
+
+    public void writeTransactionReport(String startDate, String endDate, Appendable output) throws IOException {
+        var start = LocalDate.parse(startDate, DATE_FORMATTER);
+        var end = LocalDate.parse(endDate, DATE_FORMATTER);
+        writeTransactionReport(query().between(start, end), output);
     }
 
-    private String getHeader(Transaction transaction) {
-        return transaction.date().format(DateTimeFormatter.ofPattern("yyyy/MM/dd")) +
-                " " + transaction.payee().name() + "\n";
+    private void writeTransactionReport(EntryQuery query, Appendable output) throws IOException {
+        var startTime = metrics.startTime();
+        var renderer = new ReportRenderer(locale, output);
+        var lastPosition = new int[] {-1};
+        query.forEach((position, entry) -> {
+            // every matching entry of a transaction comes right after the previous one
+            if (position != lastPosition[0]) {
+                writeTransaction(renderer, store.get(position));
+                lastPosition[0] = position;
+            }
+        });
+        metrics.queried(Metrics.Query.REPORT, startTime);
     }
 
-    private String getEntries(Transaction transaction) {
-        var entryBuilder = new StringBuilder();
-        Money balance = null;
+    private void writeTransaction(ReportRenderer renderer, Transaction transaction) throws IOException {
+        renderer.appendTransactionHeader(transaction);
+        var balance = new AmountAccumulator();
         for (var entry : transaction.entries()) {
-            var name = entry.account().getName();
-            var amount = entry.amount();
-            balance = (balance != null) ? balance.plus(amount) : amount;
-
-            var formattedAmount = formatAmount(amount);
-            var formattedBalance = formatAmount(balance);
-            entryBuilder.append(String.format("    %-40s", name))
-                    .append(String.format("%20s", formattedAmount))
-                    .append(String.format("%20s", formattedBalance))
-                    .append("\n");
+            balance.add(entry.amount());
+            // the running balance in the currency of the entry
+            renderer.appendTransactionEntry(entry.account().getName(), entry.amount(), balance.getTotal(entry.amount().getCurrencyUnit()));
         }
-        return entryBuilder.toString();
     }
 
     protected boolean accountInTransaction(Account account, Transaction transaction) {
@@ -251,155 +611,91 @@ public class Journal {
     // ------------------------------------------------
 
     public List<Entry> getEntriesBy(Payee payee) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .toList();
+        return query().withPayee(payee).getEntries();
     }
 
     public List<Entry> getEntriesBy(LocalDate date) {
-        return transactions.stream()
-                .filter(transaction -> transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .toList();
+        return query().on(date).getEntries();
     }
 
     public List<Entry> getEntriesBy(Payee payee, LocalDate date) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee) && transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .toList();
+        return query().withPayee(payee).on(date).getEntries();
     }
 
     // Methods that only filter entry information
     // ------------------------------------------
 
     public List<Entry> getEntriesBy(Account account) {
-        return transactions.stream()
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(account.getName()))
-                .toList();
+        return query().withAccountContaining(account.getName()).getEntries();
     }
 
     public List<Entry> getEntriesBy(Money amount) {
-        return transactions.stream()
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.amount().equals(amount))
-                .toList();
+        return query().withAmount(amount).getEntries();
     }
 
     public List<Entry> getEntriesBy(Account account, Money amount) {
-        return transactions.stream()
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().equals(account) && entry.amount().equals(amount))
-                .toList();
+        return query().withAccount(account).withAmount(amount).getEntries();
     }
 
     // Methods that filter both transaction and entry information
     // ----------------------------------------------------------
 
     public List<Entry> getEntriesBy(Payee payee, Account account) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(account.getName()))
-                .toList();
+        return query().withPayee(payee).withAccountContaining(account.getName()).getEntries();
     }
 
     public List<Entry> getEntriesBy(Account account, Payee payee) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(account.getName()))
-                .toList();
+        return getEntriesBy(payee, account);
     }
 
     public List<Entry> getEntriesBy(Payee payee, Money amount) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.amount().equals(amount))
-                .toList();
+        return query().withPayee(payee).withAmount(amount).getEntries();
     }
 
     public List<Entry> getEntriesBy(Account account, LocalDate date) {
-        return transactions.stream()
-                .filter(transaction -> transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(account.getName()))
-                .toList();
+        return query().withAccountContaining(account.getName()).on(date).getEntries();
     }
 
     public List<Entry> getEntriesBy(Money amount, LocalDate date) {
-        return transactions.stream()
-                .filter(transaction -> transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.amount().equals(amount))
-                .toList();
+        return query().withAmount(amount).on(date).getEntries();
     }
 
     public List<Entry> getEntriesBy(Payee payee, Account account, Money amount) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().equals(account) && entry.amount().equals(amount))
-                .toList();
+        return query().withPayee(payee).withAccount(account).withAmount(amount).getEntries();
     }
 
     public List<Entry> getEntriesBy(Account account, Payee payee, Money amount) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().equals(account) && entry.amount().equals(amount))
-                .toList();
+        return getEntriesBy(payee, account, amount);
     }
 
     public List<Entry> getEntriesBy(Payee payee, Account account, LocalDate date) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee) && transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(account.getName()))
-                .toList();
+        return query().withPayee(payee).withAccountContaining(account.getName()).on(date).getEntries();
     }
 
     public List<Entry> getEntriesBy(Account account, Payee payee, LocalDate date) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee) && transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().getName().contains(account.getName()))
-                .toList();
+        return getEntriesBy(payee, account, date);
     }
 
     public List<Entry> getEntriesBy(Payee payee, LocalDate date, Money amount) {
-        return transactions.stream()
-                .filter(transaction -> transaction.payee().equals(payee) && transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.amount().equals(amount))
-                .toList();
+        return query().withPayee(payee).on(date).withAmount(amount).getEntries();
     }
 
     public List<Entry> getEntriesBy(Account account, LocalDate date, Money amount) {
-        return transactions.stream()
-                .filter(transaction -> transaction.date().equals(date))
-                .map(Transaction::entries)
-                .flatMap(Collection::stream)
-                .filter(entry -> entry.account().equals(account) && entry.amount().equals(amount))
-                .toList();
+        return query().withAccount(account).on(date).withAmount(amount).getEntries();
+    }
+
+    /**
+     * Read-only view of the transactions in the store.
+     */
+    private class TransactionList extends AbstractList<Transaction> implements RandomAccess {
+        @Override
+        public Transaction get(int index) {
+            return store.get(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
     }
 }
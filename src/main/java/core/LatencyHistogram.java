@@ -0,0 +1,109 @@
+package core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds, with a fixed relative precision (like HdrHistogram):
+ * values below 128 are counted exactly, and larger values in buckets whose width is 1/64 of
+ * their lower bound, so any latency is recorded with less than 2% error in a fixed array.
+ * Recording does not allocate or lock, and can be done by several threads at the same time.
+ */
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 64;
+    private static final int LINEAR_VALUES = 2 * SUB_BUCKETS;
+    // values up to 2^63, with 64 buckets for each power of 2 from 2^7
+    private static final int BUCKETS = LINEAR_VALUES + (63 - 7) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        counts.incrementAndGet(getBucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        var n = count.get();
+        return (n > 0) ? (double) total.get() / n : 0;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the values are (e.g., 99 for the 99th percentile),
+     * as the highest value of its bucket. Returns 0 if there are no values.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        var n = count.get();
+        var target = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        var seen = 0L;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target) {
+                return Math.min(getHighestValue(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Removes all the values, e.g., after scraping them. Values recorded meanwhile may be lost.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    static int getBucket(long value) {
+        if (value < LINEAR_VALUES) {
+            return (int) value;
+        }
+        // the 6 bits after the highest one set select the bucket within its power of 2
+        var shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        var subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_VALUES + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long getHighestValue(int bucket) {
+        if (bucket < LINEAR_VALUES) {
+            return bucket;
+        }
+        var shift = (bucket - LINEAR_VALUES) / SUB_BUCKETS + 1;
+        var subBucket = (bucket - LINEAR_VALUES) % SUB_BUCKETS + SUB_BUCKETS;
+        var next = (long) (subBucket + 1) << shift;
+        return (next > 0) ? next - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,69 @@
+package core;
+
+import org.joda.money.Money;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the transactions of a journal as a list of transaction objects (the default storage).
+ */
+
+public class ListTransactionStore implements TransactionStore {
+    private final List<Transaction> transactions;
+
+    public ListTransactionStore() {
+        this.transactions = new ArrayList<>();
+    }
+
+    @Override
+    public void add(Transaction transaction) {
+        transactions.add(transaction);
+    }
+
+    @Override
+    public int size() {
+        return transactions.size();
+    }
+
+    @Override
+    public Transaction get(int index) {
+        return transactions.get(index);
+    }
+
+    @Override
+    public LocalDate getDate(int index) {
+        return transactions.get(index).date();
+    }
+
+    @Override
+    public TransactionStatus getStatus(int index) {
+        return transactions.get(index).status();
+    }
+
+    @Override
+    public Payee getPayee(int index) {
+        return transactions.get(index).payee();
+    }
+
+    @Override
+    public int getEntryCount(int index) {
+        return transactions.get(index).entries().size();
+    }
+
+    @Override
+    public Entry getEntry(int index, int entry) {
+        return transactions.get(index).entries().get(entry);
+    }
+
+    @Override
+    public Account getAccount(int index, int entry) {
+        return getEntry(index, entry).account();
+    }
+
+    @Override
+    public Money getAmount(int index, int entry) {
+        return getEntry(index, entry).amount();
+    }
+}
@@ -0,0 +1,65 @@
+package core;
+
+/**
+ * Receives measurements from the readers, journals and writers, to see where time goes
+ * (see {@link RecordingMetrics}). Every method does nothing by default, and {@link #NONE},
+ * used unless another one is set, neither measures time nor allocates anything.
+ * <p>
+ * Implementations must be thread-safe, as journals can be read and queried in parallel.
+ */
+
+public interface Metrics {
+    Metrics NONE = new Metrics() {
+    };
+
+    /**
+     * Kinds of journal queries, each with its own latencies.
+     */
+    enum Query {
+        BALANCE, REPORT, ENTRY_FILTER
+    }
+
+    /**
+     * Returns the time at which an operation starts, in nanoseconds, to be passed back when it ends.
+     * Implementations that do not measure time return 0.
+     */
+    default long startTime() {
+        return 0;
+    }
+
+    /**
+     * Called after reading a file (or a part of it) with the number of bytes read, and of transactions and entries parsed.
+     */
+    default void parsed(long bytes, long transactions, long entries, long startTime) {
+    }
+
+    /**
+     * Called when a transaction cannot be parsed.
+     */
+    default void parseError() {
+    }
+
+    /**
+     * Called after a query of a journal.
+     */
+    default void queried(Query kind, long startTime) {
+    }
+
+    /**
+     * Called after a query goes through its candidate entries, with the number of them that matched.
+     */
+    default void scanned(long entries, long matching) {
+    }
+
+    /**
+     * Called after writing a file (or appending to it) with the number of bytes written.
+     */
+    default void written(long bytes, long startTime) {
+    }
+
+    /**
+     * Called after forcing a file to the storage device.
+     */
+    default void synced() {
+    }
+}
@@ -0,0 +1,240 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Inverted indexes of a journal: the positions of the transactions of each payee, and the
+ * postings (entries) of each account. Postings are numbered in the order they are added,
+ * so both kinds of lists are sorted int arrays that can be intersected without going
+ * through the rest of the journal.
+ */
+
+class PostingIndex {
+    private static final int[] EMPTY = new int[0];
+
+    private final Map<Payee, IntList> transactionsByPayee;
+    private final Map<String, IntList> postingsByAccount;
+    // names of the accounts in postingsByAccount, sorted so that a prefix is a range of names
+    private final NavigableSet<String> accountNames;
+    // position of the first posting of each transaction, and transaction of each posting
+    private final IntList firstPostings;
+    private final IntList postingTransactions;
+
+    PostingIndex() {
+        this.transactionsByPayee = new HashMap<>();
+        this.postingsByAccount = new HashMap<>();
+        this.accountNames = new TreeSet<>();
+        this.firstPostings = new IntList();
+        this.postingTransactions = new IntList();
+    }
+
+    /**
+     * Adds the payee of a transaction to the payee index, which can be built ahead of the account index.
+     */
+    void addPayee(int position, Payee payee) {
+        transactionsByPayee.computeIfAbsent(payee, p -> new IntList()).add(position);
+    }
+
+    /**
+     * Adds the entries of a transaction to the account index. Transactions must be added in the order of their positions.
+     */
+    void addPostings(int position, TransactionStore store) {
+        firstPostings.add(postingTransactions.size());
+        var entryCount = store.getEntryCount(position);
+        for (int entry = 0; entry < entryCount; entry++) {
+            var name = store.getAccount(position, entry).getName();
+            var postings = postingsByAccount.get(name);
+            if (postings == null) {
+                postings = new IntList();
+                postingsByAccount.put(name, postings);
+                accountNames.add(name);
+            }
+            postings.add(postingTransactions.size());
+            postingTransactions.add(position);
+        }
+    }
+
+    /**
+     * Returns the position of the transaction of a posting.
+     */
+    int getTransaction(int posting) {
+        return postingTransactions.get(posting);
+    }
+
+    /**
+     * Returns the index of a posting within the entries of its transaction.
+     */
+    int getEntry(int posting) {
+        return posting - firstPostings.get(postingTransactions.get(posting));
+    }
+
+    /**
+     * Returns the positions of the transactions of a payee, in ascending order.
+     */
+    int[] getTransactions(Payee payee) {
+        var positions = transactionsByPayee.get(payee);
+        return (positions != null) ? positions.toArray() : EMPTY;
+    }
+
+    /**
+     * Returns the postings of an account, in ascending order.
+     */
+    int[] getPostings(String accountName) {
+        var postings = postingsByAccount.get(accountName);
+        return (postings != null) ? postings.toArray() : EMPTY;
+    }
+
+    /**
+     * Returns the postings of all the accounts whose name starts with a prefix, in ascending order.
+     * Only the range of account names from the prefix on is visited.
+     */
+    int[] getPostingsByPrefix(String prefix) {
+        var matchingAccounts = new ArrayList<IntList>();
+        for (var name : accountNames.tailSet(prefix, true)) {
+            if (!name.startsWith(prefix)) {
+                break;
+            }
+            matchingAccounts.add(postingsByAccount.get(name));
+        }
+        return merge(matchingAccounts);
+    }
+
+    /**
+     * Returns the postings of all the accounts whose name matches a condition, in ascending order.
+     * Every account is tested, so {@link #getPostings(String)} or {@link #getPostingsByPrefix}
+     * should be used when they fit.
+     */
+    int[] getPostings(Predicate<String> accountName) {
+        var matchingAccounts = new ArrayList<IntList>();
+        for (var account : postingsByAccount.entrySet()) {
+            if (accountName.test(account.getKey())) {
+                matchingAccounts.add(account.getValue());
+            }
+        }
+        return merge(matchingAccounts);
+    }
+
+    /**
+     * Returns the postings of several accounts, in ascending order.
+     */
+    private static int[] merge(List<IntList> matchingAccounts) {
+        var size = 0;
+        for (var postings : matchingAccounts) {
+            size += postings.size();
+        }
+        var result = new int[size];
+        var position = 0;
+        for (var postings : matchingAccounts) {
+            postings.copyTo(result, position);
+            position += postings.size();
+        }
+        // the postings of different accounts are interleaved
+        if (matchingAccounts.size() > 1) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the postings whose transaction is at one of the given positions (both sorted).
+     * The shorter list is walked and the other one is searched, so a few transactions of a
+     * day are not compared with every posting of an account, nor the other way round.
+     */
+    int[] getPostings(int[] postings, int[] positions) {
+        var result = new IntList();
+        if (postings.length <= positions.length) {
+            var j = 0;
+            for (var posting : postings) {
+                var position = getTransaction(posting);
+                j = lowerBound(positions, j, position);
+                if (j == positions.length) {
+                    break;
+                }
+                if (positions[j] == position) {
+                    result.add(posting);
+                }
+            }
+        } else {
+            var i = 0;
+            for (var position : positions) {
+                var end = (position + 1 < firstPostings.size()) ? firstPostings.get(position + 1) : postingTransactions.size();
+                i = lowerBound(postings, i, firstPostings.get(position));
+                while (i < postings.length && postings[i] < end) {
+                    result.add(postings[i++]);
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Returns the values that are in both sorted arrays.
+     */
+    static int[] intersect(int[] a, int[] b) {
+        var shorter = (a.length <= b.length) ? a : b;
+        var longer = (shorter == a) ? b : a;
+        var result = new IntList();
+        var j = 0;
+        for (var value : shorter) {
+            j = lowerBound(longer, j, value);
+            if (j == longer.length) {
+                break;
+            }
+            if (longer[j] == value) {
+                result.add(value);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Returns the values that are in any of the sorted arrays, without duplicates.
+     */
+    static int[] union(int[]... arrays) {
+        if (arrays.length == 1) {
+            return arrays[0];
+        }
+        var size = 0;
+        for (var array : arrays) {
+            size += array.length;
+        }
+        var all = new int[size];
+        var position = 0;
+        for (var array : arrays) {
+            System.arraycopy(array, 0, all, position, array.length);
+            position += array.length;
+        }
+        Arrays.sort(all);
+        var result = new IntList(size);
+        for (var value : all) {
+            if (result.isEmpty() || result.get(result.size() - 1) != value) {
+                result.add(value);
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Returns the first index, from the given one, whose value is not less than the key.
+     */
+    private static int lowerBound(int[] values, int from, int key) {
+        var low = from;
+        var high = values.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,66 @@
+package core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of a journal query (a balance or an entry filter) that took longer than
+ * its threshold, 10 ms unless the recording sets another one (e.g., {@code ledger.Query#threshold=1 ms}).
+ * When no recording is running, the event is never filled in or committed.
+ */
+
+@Name("ledger.Query")
+@Label("Journal Query")
+@Category("Ledger")
+@Description("Query of a journal, with its conditions, the entries it went through and the results")
+@Threshold("10 ms")
+class QueryEvent extends Event {
+    @Label("Kind")
+    String kind;
+
+    @Label("Method")
+    String method;
+
+    @Label("Filter")
+    String filter;
+
+    @Label("Scanned")
+    @Description("Entries (or account histories, for balances) the query went through")
+    long scanned;
+
+    @Label("Results")
+    long results;
+
+    static QueryEvent start() {
+        var event = new QueryEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold. The filter is only
+     * turned into text in that case, so it can be any object that describes the query.
+     */
+    void end(Metrics.Query kind, String method, Object filter, long scanned, long results) {
+        end();
+        if (shouldCommit()) {
+            commit(kind, method, filter, scanned, results);
+        }
+    }
+
+    /**
+     * Fills in the event and commits it, once it has ended and {@link #shouldCommit()} returned true.
+     */
+    void commit(Metrics.Query kind, String method, Object filter, long scanned, long results) {
+        this.kind = kind.name();
+        this.method = method;
+        this.filter = String.valueOf(filter);
+        this.scanned = scanned;
+        this.results = results;
+        commit();
+    }
+}
@@ -0,0 +1,178 @@
+package core;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics kept in memory: counters of what was read, parsed, scanned and written, and a
+ * {@link LatencyHistogram} of each kind of query. They can be read one by one, or scraped
+ * as text in the Prometheus exposition format (see {@link #scrape(Appendable)}).
+ */
+
+public class RecordingMetrics implements Metrics {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final LongAdder bytesRead;
+    private final LongAdder transactionsParsed;
+    private final LongAdder entriesParsed;
+    private final LongAdder parseNanos;
+    private final LongAdder parseErrors;
+    private final LongAdder entriesScanned;
+    private final LongAdder entriesMatching;
+    private final LongAdder bytesWritten;
+    private final LongAdder writeNanos;
+    private final LongAdder syncs;
+    private final Map<Query, LatencyHistogram> queryLatencies;
+
+    public RecordingMetrics() {
+        this.bytesRead = new LongAdder();
+        this.transactionsParsed = new LongAdder();
+        this.entriesParsed = new LongAdder();
+        this.parseNanos = new LongAdder();
+        this.parseErrors = new LongAdder();
+        this.entriesScanned = new LongAdder();
+        this.entriesMatching = new LongAdder();
+        this.bytesWritten = new LongAdder();
+        this.writeNanos = new LongAdder();
+        this.syncs = new LongAdder();
+        this.queryLatencies = new EnumMap<>(Query.class);
+        for (var kind : Query.values()) {
+            queryLatencies.put(kind, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public long startTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void parsed(long bytes, long transactions, long entries, long startTime) {
+        bytesRead.add(bytes);
+        transactionsParsed.add(transactions);
+        entriesParsed.add(entries);
+        parseNanos.add(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void parseError() {
+        parseErrors.increment();
+    }
+
+    @Override
+    public void queried(Query kind, long startTime) {
+        queryLatencies.get(kind).record(Math.max(0, System.nanoTime() - startTime));
+    }
+
+    @Override
+    public void scanned(long entries, long matching) {
+        entriesScanned.add(entries);
+        entriesMatching.add(matching);
+    }
+
+    @Override
+    public void written(long bytes, long startTime) {
+        bytesWritten.add(bytes);
+        writeNanos.add(System.nanoTime() - startTime);
+    }
+
+    @Override
+    public void synced() {
+        syncs.increment();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getTransactionsParsed() {
+        return transactionsParsed.sum();
+    }
+
+    public long getEntriesParsed() {
+        return entriesParsed.sum();
+    }
+
+    /**
+     * Returns the time spent reading and parsing, in nanoseconds (added up across threads when reading in parallel).
+     */
+    public long getParseNanos() {
+        return parseNanos.sum();
+    }
+
+    /**
+     * Returns the number of transactions parsed per second of parsing.
+     */
+    public double getTransactionsParsedPerSecond() {
+        var nanos = parseNanos.sum();
+        return (nanos > 0) ? transactionsParsed.sum() * 1e9 / nanos : 0;
+    }
+
+    public long getParseErrors() {
+        return parseErrors.sum();
+    }
+
+    public long getEntriesScanned() {
+        return entriesScanned.sum();
+    }
+
+    public long getEntriesMatching() {
+        return entriesMatching.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    public LatencyHistogram getQueryLatencies(Query kind) {
+        return queryLatencies.get(kind);
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format: counters, and a summary of
+     * the latencies of each kind of query (in seconds).
+     */
+    public void scrape(Appendable output) throws IOException {
+        appendCounter(output, "ledger_read_bytes_total", getBytesRead());
+        appendCounter(output, "ledger_parsed_transactions_total", getTransactionsParsed());
+        appendCounter(output, "ledger_parsed_entries_total", getEntriesParsed());
+        appendCounter(output, "ledger_parse_seconds_total", getParseNanos() / 1e9);
+        appendCounter(output, "ledger_parse_errors_total", getParseErrors());
+        appendCounter(output, "ledger_scanned_entries_total", getEntriesScanned());
+        appendCounter(output, "ledger_matching_entries_total", getEntriesMatching());
+        appendCounter(output, "ledger_written_bytes_total", getBytesWritten());
+        appendCounter(output, "ledger_write_seconds_total", getWriteNanos() / 1e9);
+        appendCounter(output, "ledger_syncs_total", getSyncs());
+
+        output.append("# TYPE ledger_query_seconds summary\n");
+        for (var kind : Query.values()) {
+            var histogram = queryLatencies.get(kind);
+            var label = "kind=\"" + kind.name().toLowerCase(Locale.ROOT) + "\"";
+            for (var quantile : QUANTILES) {
+                var value = histogram.getValueAtPercentile(quantile * 100) / 1e9;
+                output.append("ledger_query_seconds{").append(label).append(",quantile=\"").append(String.valueOf(quantile))
+                        .append("\"} ").append(String.valueOf(value)).append('\n');
+            }
+            output.append("ledger_query_seconds_sum{").append(label).append("} ")
+                    .append(String.valueOf(histogram.getTotal() / 1e9)).append('\n');
+            output.append("ledger_query_seconds_count{").append(label).append("} ")
+                    .append(String.valueOf(histogram.getCount())).append('\n');
+        }
+    }
+
+    private static void appendCounter(Appendable output, String name, Number value) throws IOException {
+        output.append("# TYPE ").append(name).append(" counter\n");
+        output.append(name).append(' ').append(String.valueOf(value)).append('\n');
+    }
+}
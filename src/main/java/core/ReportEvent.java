@@ -0,0 +1,30 @@
+package core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of a report rendered into a string that took longer than its
+ * threshold, 10 ms unless the recording sets another one (e.g., {@code ledger.Report#threshold=0 ms}).
+ */
+
+@Name("ledger.Report")
+@Label("Journal Report")
+@Category("Ledger")
+@Description("Report of a journal rendered into a string")
+@Threshold("10 ms")
+class ReportEvent extends Event {
+    @Label("Report")
+    String report;
+
+    @Label("Filter")
+    String filter;
+
+    @Label("Output Size")
+    @Description("Characters of the report")
+    long outputSize;
+}
@@ -0,0 +1,127 @@
+package core;
+
+import org.joda.money.Money;
+import org.joda.money.format.MoneyAmountStyle;
+import org.joda.money.format.MoneyFormatter;
+import org.joda.money.format.MoneyFormatterBuilder;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the lines of the journal reports to an {@link Appendable}, one line at a time, so
+ * that reports can be written directly to a file or a stream. Amount formatters are built
+ * once per locale and cached, and columns are padded by hand instead of with String.format.
+ */
+
+class ReportRenderer {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final Map<Locale, MoneyFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private final MoneyFormatter formatter;
+    private final Appendable output;
+    private final StringBuilder line;
+    private final StringBuilder amount;
+
+    ReportRenderer(Locale locale, Appendable output) {
+        this.formatter = getFormatter(locale);
+        this.output = output;
+        this.line = new StringBuilder(128);
+        this.amount = new StringBuilder(32);
+    }
+
+    /**
+     * Returns the formatter of amounts for a locale (e.g., "1.000,00 €" for es-ES).
+     */
+    static MoneyFormatter getFormatter(Locale locale) {
+        return FORMATTERS.computeIfAbsent(locale, l -> new MoneyFormatterBuilder()
+                .appendAmount(MoneyAmountStyle.of(l))
+                .appendLiteral(" ")
+                .appendCurrencySymbolLocalized()
+                .toFormatter());
+    }
+
+    /**
+     * Appends a line of a balance report: the amount of an entry and its account.
+     */
+    void appendBalanceLine(Money amount, String accountName) throws IOException {
+        line.setLength(0);
+        line.append("  ");
+        formatter.print(line, amount);
+        line.append("  ").append(accountName).append('\n');
+        output.append(line);
+    }
+
+    void appendSeparator(int length) throws IOException {
+        line.setLength(0);
+        pad(line, length, '-');
+        output.append(line.append('\n'));
+    }
+
+    /**
+     * Appends the total of a balance report.
+     */
+    void appendTotal(Money balance) throws IOException {
+        line.setLength(0);
+        line.append("  ");
+        formatter.print(line, balance);
+        output.append(line.append('\n'));
+    }
+
+    /**
+     * Appends the header of a transaction in a transaction report: its date and payee.
+     */
+    void appendTransactionHeader(Transaction transaction) throws IOException {
+        line.setLength(0);
+        DATE_FORMATTER.formatTo(transaction.date(), line);
+        line.append(' ').append(transaction.payee().name()).append('\n');
+        output.append(line);
+    }
+
+    /**
+     * Appends an entry of a transaction in a transaction report, with the running balance of the transaction.
+     */
+    void appendTransactionEntry(String accountName, Money amount, Money balance) throws IOException {
+        line.setLength(0);
+        line.append("    ").append(accountName);
+        pad(line, 40 - accountName.length(), ' ');
+        appendAmount(amount, 20);
+        appendAmount(balance, 20);
+        output.append(line.append('\n'));
+    }
+
+    /**
+     * Appends an account of a hierarchical balance report, indented by its depth in the tree.
+     */
+    void appendTreeLine(Money balance, int depth, String name) throws IOException {
+        line.setLength(0);
+        appendAmount(balance, 20);
+        line.append("  ");
+        pad(line, depth * 2, ' ');
+        line.append(name).append('\n');
+        output.append(line);
+    }
+
+    void appendTreeTotal(Money balance) throws IOException {
+        line.setLength(0);
+        appendAmount(balance, 20);
+        output.append(line.append('\n'));
+    }
+
+    // appends an amount aligned to the right of a column
+    private void appendAmount(Money value, int width) {
+        amount.setLength(0);
+        formatter.print(amount, value);
+        pad(line, width - amount.length(), ' ');
+        line.append(amount);
+    }
+
+    private static void pad(StringBuilder builder, int count, char c) {
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+    }
+}
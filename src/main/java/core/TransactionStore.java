@@ -0,0 +1,63 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.time.LocalDate;
+
+/**
+ * Storage of the transactions of a journal, by position (in the order they were added).
+ * Besides getting whole transactions, it gives access to their fields and entries one by one,
+ * so that queries can filter transactions and entries without building the ones they skip.
+ */
+
+public interface TransactionStore {
+    void add(Transaction transaction);
+    int size();
+    Transaction get(int index);
+    LocalDate getDate(int index);
+    TransactionStatus getStatus(int index);
+    Payee getPayee(int index);
+    int getEntryCount(int index);
+    Entry getEntry(int index, int entry);
+    Account getAccount(int index, int entry);
+    Money getAmount(int index, int entry);
+
+    /**
+     * Returns the currency of the amount of an entry, or null if it has no amount.
+     */
+    default CurrencyUnit getCurrency(int index, int entry) {
+        var amount = getAmount(index, entry);
+        return (amount != null) ? amount.getCurrencyUnit() : null;
+    }
+
+    /**
+     * Returns the amount of an entry (which must have one) as a long number of minor units of its
+     * currency, e.g., cents. Like {@link Money#getAmountMinorLong()}, it throws an ArithmeticException
+     * if the amount does not fit in a long. Stores that keep the amounts in minor units return them
+     * without building a {@link Money} object.
+     */
+    default long getAmountMinor(int index, int entry) {
+        return getAmount(index, entry).getAmountMinorLong();
+    }
+
+    /**
+     * Adds the amount of an entry, if it has one, to an accumulator. Stores that keep the
+     * amounts in minor units can do it without building a {@link Money} object.
+     */
+    default void addAmount(int index, int entry, AmountAccumulator accumulator) {
+        var amount = getAmount(index, entry);
+        if (amount != null) {
+            accumulator.add(amount);
+        }
+    }
+
+    /**
+     * Returns true if the entries of the transactions are costly to get (e.g., parsed on demand),
+     * so the journal indexes them only when a query cannot do without them. The date, status and
+     * payee of the transactions must still be cheap to get.
+     */
+    default boolean isLazy() {
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The high-water mark of a journal file: the number of transactions already written to it and
+ * the size of the file after writing them. It is kept as text ("transactions size") in a
+ * ".mark" file next to the journal file, replaced atomically on each update.
+ */
+
+class HighWaterMark {
+    private static final String SUFFIX = ".mark";
+
+    private final int transactions;
+    private final long size;
+
+    HighWaterMark(int transactions, long size) {
+        this.transactions = transactions;
+        this.size = size;
+    }
+
+    int getTransactions() {
+        return transactions;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the path of the file with the high-water mark of a journal file.
+     */
+    static Path getPath(Path journalPath) {
+        return journalPath.resolveSibling(journalPath.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Reads the high-water mark of a journal file, or returns null if it has none.
+     */
+    static HighWaterMark read(Path journalPath) throws IOException {
+        var path = getPath(journalPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        var fields = Files.readString(path, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            return new HighWaterMark(Integer.parseInt(fields[0]), Long.parseLong(fields[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid high-water mark: " + path, e);
+        }
+    }
+
+    /**
+     * Writes the high-water mark of a journal file, replacing the previous one at once, so a
+     * crash leaves either the old or the new mark. It is forced to the storage device if
+     * {@code sync} is true.
+     */
+    void write(Path journalPath, boolean sync) throws IOException {
+        var path = getPath(journalPath);
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        var options = new StandardOpenOption[] {
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        };
+        try (var channel = FileChannel.open(temporary, options)) {
+            channel.write(StandardCharsets.UTF_8.encode(transactions + " " + size + "\n"));
+            if (sync) {
+                channel.force(true);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
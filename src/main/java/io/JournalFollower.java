@@ -0,0 +1,167 @@
+package io;
+
+import core.Ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a journal file that other programs keep appending to (like "tail -f"), adding the
+ * new transactions to a journal as they are appended. It remembers the position in the file
+ * right after the last transaction read, so each refresh only reads the new bytes.
+ * <p>
+ * A program appending to the file may stop between two lines of a transaction, so a
+ * transaction is only read once a blank line follows it, and the last transaction of the file
+ * is held back until then (e.g., the last transaction appended with {@link LedgerWriter#appendJournal}
+ * is read with the next batch). If the caller knows that the file is at rest (e.g., the program
+ * appending to it has finished), {@link #poll(boolean)} also reads the last transaction.
+ * Transactions that cannot be parsed are skipped, and reported by {@link #getErrors()}.
+ * <p>
+ * Changes are detected with a {@link WatchService} on the directory of the file, or by polling
+ * if the file system does not support it. Transactions are added on the thread that calls
+ * {@link #poll()} or {@link #awaitChanges}, so the journal should only be used from that thread.
+ */
+
+public class JournalFollower implements Closeable {
+    private final LedgerReader reader;
+    private final Path filePath;
+    // null if changes are detected by polling
+    private final WatchService watchService;
+    private final List<RuntimeException> errors;
+    private long position;
+
+    JournalFollower(LedgerReader reader, Path filePath) {
+        this.reader = reader;
+        this.filePath = filePath;
+        this.watchService = newWatchService(filePath);
+        this.errors = new ArrayList<>();
+    }
+
+    private static WatchService newWatchService(Path filePath) {
+        var directory = filePath.toAbsolutePath().getParent();
+        try {
+            var watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    public Ledger getLedger() {
+        return reader.getLedger();
+    }
+
+    /**
+     * Returns the position in the file right after the last transaction read.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the errors of the transactions that could not be parsed, in the order of the file.
+     * These transactions are skipped, so a malformed transaction does not stop the following ones.
+     */
+    public List<RuntimeException> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Reads the transactions appended to the file since the last time, and adds them to the
+     * journal. The last transaction of the file is held back until a blank line follows it.
+     * Returns the number of transactions added.
+     */
+    public int poll() {
+        return poll(false);
+    }
+
+    /**
+     * Reads the transactions appended to the file since the last time, and adds them to the
+     * journal. If {@code atRest} is true, nothing is being appended to the file, so its last
+     * transaction is read too (unless it cannot be parsed, in which case it is held back, as it
+     * may be completed later). Returns the number of transactions added.
+     */
+    public int poll(boolean atRest) {
+        try (var channel = FileChannel.open(filePath)) {
+            var size = channel.size();
+            if (size < position) {
+                throw new IllegalStateException("Journal file truncated: " + filePath);
+            }
+            if (size == position) {
+                return 0;
+            }
+            var metrics = reader.getMetrics();
+            var startTime = metrics.startTime();
+            var event = ParseEvent.start();
+            var start = position;
+            var scanner = new TransactionScanner(channel.position(start));
+            var count = 0;
+            var entries = 0L;
+            while (scanner.next() && (scanner.endsWithNewLine() || atRest)) {
+                // the last transaction may still be being written
+                var ended = scanner.endedByBlankLine();
+                if (!ended && !atRest) {
+                    break;
+                }
+                try {
+                    entries += reader.addTransaction(scanner.text()).entries().size();
+                    count++;
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    if (!ended) {
+                        break;
+                    }
+                    errors.add(e);
+                }
+                position = start + scanner.position();
+            }
+            metrics.parsed(position - start, count, entries, startTime);
+            event.end(filePath, start, position - start, count, entries);
+            return count;
+        } catch (NoSuchFileException e) {
+            // not created yet
+            return 0;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits until the file changes or the timeout elapses, and then reads the transactions
+     * appended to it. Returns at once if there already are new transactions.
+     * Returns the number of transactions added.
+     */
+    public int awaitChanges(long timeout, TimeUnit unit) throws InterruptedException {
+        var count = poll();
+        if (count > 0) {
+            return count;
+        }
+        if (watchService != null) {
+            var key = watchService.poll(timeout, unit);
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } else {
+            unit.sleep(timeout);
+        }
+        return poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
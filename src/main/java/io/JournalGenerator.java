@@ -0,0 +1,251 @@
+package io;
+
+import org.joda.money.CurrencyUnit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic journals in the Ledger format, to test and measure the reader and the
+ * queries at any scale without real data. The same seed always generates the same journal.
+ * <p>
+ * Each transaction pays one or more expense accounts, leaves of an account tree of the given
+ * depth and fan-out (e.g., "Expenses:Account 3:Account 3.1"), from "Assets:Cash" or
+ * "Assets:Bank", in a single currency. Payees follow a Zipf distribution (a few payees have
+ * most of the transactions), and dates go from the start to the end date in ascending order.
+ * Transactions are written one at a time, so journals can be far larger than the heap.
+ */
+
+public class JournalGenerator {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_EXPENSES = 3;
+    // amounts go from 1 to 1.000.000 cents
+    private static final double MAX_AMOUNT_LOG = Math.log(1_000_000);
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    private final long seed;
+    private final Locale locale;
+    private final char decimalSeparator;
+    private long transactions;
+    private int depth;
+    private int fanOut;
+    private int payees;
+    private double payeeSkew;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<CurrencyUnit> currencies;
+
+    public JournalGenerator(long seed) {
+        this(seed, Locale.getDefault());
+    }
+
+    /**
+     * Creates a generator of journals in the format of the given locale (decimal separator and currency).
+     */
+    public JournalGenerator(long seed, Locale locale) {
+        this.seed = seed;
+        this.locale = locale;
+        this.decimalSeparator = DecimalFormatSymbols.getInstance(locale).getMonetaryDecimalSeparator();
+        this.transactions = 1000;
+        this.depth = 2;
+        this.fanOut = 5;
+        this.payees = 1000;
+        this.payeeSkew = 1.0;
+        this.startDate = LocalDate.of(2023, 1, 1);
+        this.endDate = LocalDate.of(2023, 12, 31);
+        this.currencies = List.of(CurrencyUnit.of(locale));
+    }
+
+    public JournalGenerator withTransactions(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid number of transactions: " + count);
+        }
+        this.transactions = count;
+        return this;
+    }
+
+    /**
+     * Sets the number of levels of the expense accounts below "Expenses", and the number of children of each account.
+     */
+    public JournalGenerator withAccountTree(int depth, int fanOut) {
+        if (depth < 1 || fanOut < 1) {
+            throw new IllegalArgumentException("Invalid account tree: depth " + depth + ", fan-out " + fanOut);
+        }
+        this.depth = depth;
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * Sets the number of payees and the exponent of their Zipf distribution
+     * (0 for a uniform distribution, the higher the more skewed).
+     */
+    public JournalGenerator withPayees(int count, double skew) {
+        if (count < 1 || skew < 0) {
+            throw new IllegalArgumentException("Invalid payees: count " + count + ", skew " + skew);
+        }
+        this.payees = count;
+        this.payeeSkew = skew;
+        return this;
+    }
+
+    public JournalGenerator between(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date after end date: " + start + ", " + end);
+        }
+        this.startDate = start;
+        this.endDate = end;
+        return this;
+    }
+
+    /**
+     * Sets the currencies of the transactions. The first one is used by most transactions
+     * (80% if there are several), and the rest share the remaining ones equally.
+     */
+    public JournalGenerator withCurrencies(CurrencyUnit... currencies) {
+        if (currencies.length == 0) {
+            throw new IllegalArgumentException("No currencies");
+        }
+        for (var currency : currencies) {
+            if (currency.getDecimalPlaces() >= POWERS_OF_TEN.length) {
+                throw new IllegalArgumentException("Unsupported currency: " + currency);
+            }
+        }
+        this.currencies = List.of(currencies);
+        return this;
+    }
+
+    public void generate(Path path) throws IOException {
+        try (var writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            generate(writer);
+        }
+    }
+
+    public void generate(Appendable output) throws IOException {
+        var random = new SplittableRandom(seed);
+        var payeeDistribution = getZipfDistribution(payees, payeeSkew);
+        var days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        var symbols = currencies.stream()
+                .map(c -> c.equals(CurrencyUnit.of(locale)) ? c.getSymbol(locale) : c.getCode())
+                .toArray(String[]::new);
+        var transaction = new StringBuilder(256);
+        for (long i = 0; i < transactions; i++) {
+            transaction.setLength(0);
+            // add a new line between transactions, but not after the last one
+            if (i > 0) {
+                transaction.append('\n');
+            }
+            DATE_FORMATTER.formatTo(startDate.plusDays(i * days / transactions), transaction);
+            var status = random.nextInt(10);
+            transaction.append((status < 7) ? " * " : (status < 8) ? " ! " : " ");
+            transaction.append("Payee ").append(getPayee(payeeDistribution, random)).append('\n');
+
+            var currency = getCurrency(random);
+            var decimalPlaces = currencies.get(currency).getDecimalPlaces();
+            var total = 0L;
+            var expenses = 1 + random.nextInt(MAX_EXPENSES);
+            for (int e = 0; e < expenses; e++) {
+                var amount = getAmount(random, decimalPlaces);
+                total += amount;
+                appendExpenseAccount(transaction, random);
+                appendAmount(transaction, amount, decimalPlaces, symbols[currency]);
+            }
+            appendAccount(transaction, random.nextBoolean() ? "Assets:Cash" : "Assets:Bank");
+            appendAmount(transaction, -total, decimalPlaces, symbols[currency]);
+            output.append(transaction);
+        }
+    }
+
+    // cumulative probabilities of a Zipf distribution: the k-th value has a weight of 1 / k^skew
+    private static double[] getZipfDistribution(int count, double skew) {
+        var cumulative = new double[count];
+        var sum = 0.0;
+        for (int k = 0; k < count; k++) {
+            sum += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < count; k++) {
+            cumulative[k] /= sum;
+        }
+        return cumulative;
+    }
+
+    private int getPayee(double[] distribution, SplittableRandom random) {
+        var i = Arrays.binarySearch(distribution, random.nextDouble());
+        // the first value whose cumulative probability is higher than the random number
+        return Math.min((i >= 0) ? i + 1 : -i - 1, payees - 1);
+    }
+
+    // random amount in minor units, log-uniform so that it is more often small than large
+    private static long getAmount(SplittableRandom random, int decimalPlaces) {
+        var cents = (long) Math.exp(random.nextDouble() * MAX_AMOUNT_LOG);
+        return Math.max(1, cents / POWERS_OF_TEN[2 - Math.min(decimalPlaces, 2)]);
+    }
+
+    private int getCurrency(SplittableRandom random) {
+        var count = currencies.size();
+        if (count == 1 || random.nextInt(10) < 8) {
+            return 0;
+        }
+        return 1 + random.nextInt(count - 1);
+    }
+
+    private void appendExpenseAccount(StringBuilder transaction, SplittableRandom random) {
+        var start = transaction.length();
+        transaction.append("    Expenses");
+        var path = new StringBuilder();
+        for (int level = 0; level < depth; level++) {
+            if (level > 0) {
+                path.append('.');
+            }
+            path.append(random.nextInt(fanOut));
+            transaction.append(":Account ").append(path);
+        }
+        pad(transaction, 44 - (transaction.length() - start));
+    }
+
+    private static void appendAccount(StringBuilder transaction, String account) {
+        transaction.append("    ").append(account);
+        pad(transaction, 40 - account.length());
+    }
+
+    // appends an amount given in minor units, and ends the line
+    private void appendAmount(StringBuilder transaction, long amount, int decimalPlaces, String symbol) {
+        if (amount < 0) {
+            transaction.append('-');
+            amount = -amount;
+        }
+        var unit = POWERS_OF_TEN[decimalPlaces];
+        transaction.append(amount / unit);
+        if (decimalPlaces > 0) {
+            transaction.append(decimalSeparator);
+            var fraction = String.valueOf(amount % unit);
+            pad(transaction, decimalPlaces - fraction.length(), '0');
+            transaction.append(fraction);
+        }
+        transaction.append(' ').append(symbol).append('\n');
+    }
+
+    private static void pad(StringBuilder builder, int count) {
+        // at least two spaces between the account and the amount
+        pad(builder, Math.max(count, 2), ' ');
+    }
+
+    private static void pad(StringBuilder builder, int count, char c) {
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+    }
+}
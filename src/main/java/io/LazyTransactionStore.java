@@ -0,0 +1,203 @@
+package io;
+
+import core.*;
+import org.joda.money.Money;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stores the transactions of a journal file read lazily (see {@link LedgerReader#readJournalLazily}).
+ * Only the position in the file, date, status and payee of each transaction are kept, and
+ * the text of a transaction is parsed again each time its entries are needed, unless it is
+ * still in a bounded cache of the last transactions parsed. The file is memory-mapped, and
+ * must not change while the journal is in use. Transactions added later are kept in memory.
+ */
+
+class LazyTransactionStore implements TransactionStore {
+    // the file is mapped in overlapping segments, each one starting every 1 GB and as long as a mapping can be
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final LedgerReader reader;
+    private final long fileSize;
+    private final ByteBuffer[] segments;
+    private long[] offsets;
+    private int[] lengths;
+    private LocalDate[] dates;
+    private TransactionStatus[] statuses;
+    private Payee[] payees;
+    private int size;
+    // least recently used transactions parsed, by position (null if there is no cache)
+    private final Map<Integer, Transaction> cache;
+    // the last transaction parsed, as queries go through the entries of a transaction one after the other
+    private volatile Parsed last;
+    private final TransactionStore appended;
+
+    LazyTransactionStore(LedgerReader reader, FileChannel channel, int cacheSize) throws IOException {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+        this.reader = reader;
+        this.fileSize = channel.size();
+        this.segments = new ByteBuffer[(int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            var start = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(fileSize - start, Integer.MAX_VALUE));
+        }
+        this.offsets = new long[16];
+        this.lengths = new int[16];
+        this.dates = new LocalDate[16];
+        this.statuses = new TransactionStatus[16];
+        this.payees = new Payee[16];
+        this.cache = (cacheSize > 0) ? new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Transaction> eldest) {
+                return size() > cacheSize;
+            }
+        } : null;
+        this.appended = new ListTransactionStore();
+    }
+
+    /**
+     * Scans the file once, adding each transaction with the date, status and payee that the given
+     * function parses from its header (a transaction without entries), and only where its text is.
+     */
+    void scan(Function<String, Transaction> headerParser) {
+        var offset = 0L;
+        while (offset < fileSize) {
+            var segment = (int) (offset / SEGMENT_SIZE);
+            var segmentStart = segment * SEGMENT_SIZE;
+            var mappingEnd = segmentStart + segments[segment].limit();
+            var scanner = new TransactionScanner(segments[segment].duplicate().position((int) (offset - segmentStart)));
+            var scanStart = offset;
+            offset = mappingEnd;
+            while (scanner.nextHeader()) {
+                var start = scanStart + scanner.start();
+                if (start >= segmentStart + SEGMENT_SIZE) {
+                    // the transactions from here on are scanned again in the next segment
+                    offset = start;
+                    break;
+                }
+                if (scanStart + scanner.position() == mappingEnd && mappingEnd < fileSize) {
+                    throw new IllegalArgumentException("Transaction too long to be read lazily, at byte " + start);
+                }
+                add(start, scanner.textLength(), headerParser.apply(scanner.header()));
+            }
+        }
+    }
+
+    private void add(long offset, int length, Transaction header) {
+        if (size == offsets.length) {
+            var capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            payees = Arrays.copyOf(payees, capacity);
+        }
+        offsets[size] = offset;
+        lengths[size] = length;
+        dates[size] = header.date();
+        statuses[size] = header.status();
+        payees[size] = header.payee();
+        size++;
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public void add(Transaction transaction) {
+        appended.add(transaction);
+    }
+
+    @Override
+    public int size() {
+        return size + appended.size();
+    }
+
+    @Override
+    public Transaction get(int index) {
+        return (index < size) ? parse(index) : appended.get(index - size);
+    }
+
+    @Override
+    public LocalDate getDate(int index) {
+        return (index < size) ? dates[index] : appended.getDate(index - size);
+    }
+
+    @Override
+    public TransactionStatus getStatus(int index) {
+        return (index < size) ? statuses[index] : appended.getStatus(index - size);
+    }
+
+    @Override
+    public Payee getPayee(int index) {
+        return (index < size) ? payees[index] : appended.getPayee(index - size);
+    }
+
+    @Override
+    public int getEntryCount(int index) {
+        return get(index).entries().size();
+    }
+
+    @Override
+    public Entry getEntry(int index, int entry) {
+        return get(index).entries().get(entry);
+    }
+
+    @Override
+    public Account getAccount(int index, int entry) {
+        return getEntry(index, entry).account();
+    }
+
+    @Override
+    public Money getAmount(int index, int entry) {
+        return getEntry(index, entry).amount();
+    }
+
+    private Transaction parse(int index) {
+        var parsed = last;
+        if (parsed != null && parsed.index() == index) {
+            return parsed.transaction();
+        }
+        Transaction transaction = null;
+        if (cache != null) {
+            synchronized (cache) {
+                transaction = cache.get(index);
+            }
+        }
+        if (transaction == null) {
+            var metrics = reader.getMetrics();
+            var startTime = metrics.startTime();
+            transaction = reader.parseTransaction(readText(index));
+            metrics.parsed(lengths[index], 1, transaction.entries().size(), startTime);
+            if (cache != null) {
+                synchronized (cache) {
+                    cache.put(index, transaction);
+                }
+            }
+        }
+        last = new Parsed(index, transaction);
+        return transaction;
+    }
+
+    private String readText(int index) {
+        var segment = segments[(int) (offsets[index] / SEGMENT_SIZE)];
+        var bytes = new byte[lengths[index]];
+        segment.get((int) (offsets[index] % SEGMENT_SIZE), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private record Parsed(int index, Transaction transaction) {
+    }
+}
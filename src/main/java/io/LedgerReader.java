@@ -3,17 +3,21 @@ package io;
 import core.*;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
-import org.joda.money.format.MoneyAmountStyle;
-import org.joda.money.format.MoneyFormatterBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Reads a journal from a file stored using the Ledger format.
@@ -23,104 +27,417 @@ import java.util.regex.Pattern;
  */
 
 public class LedgerReader implements Reader {
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    private static final int DEFAULT_CACHE_SIZE = 4096;
+    // currencies by code and by symbol, for each locale
+    private static final Map<Locale, Map<String, CurrencyUnit>> CURRENCIES = new ConcurrentHashMap<>();
+    // symbols shared by several currencies (e.g., "$" for USD, CAD or MXN, "¥" for JPY or CNY)
+    private static final Set<String> AMBIGUOUS_SYMBOLS = Set.of("$", "¥");
 
     private final ChartOfAccounts accounts;
     private final Journal journal;
+    private final CurrencyUnit currency;
+    private final String currencySymbol;
+    private final Map<String, CurrencyUnit> currencies;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    // payees and dates are shared by all the transactions that use them
+    private final Map<String, Payee> payees;
+    private final Map<Integer, LocalDate> dates;
+    private Metrics metrics;
 
     public LedgerReader() {
         this(Locale.getDefault());
     }
 
     public LedgerReader(Locale locale) {
+        this(locale, new ListTransactionStore());
+    }
+
+    /**
+     * Creates a reader that keeps the transactions of the journal in the given store
+     * (e.g., a {@link ColumnarTransactionStore} to use less memory).
+     */
+    public LedgerReader(Locale locale, TransactionStore store) {
         this.accounts = new ChartOfAccounts();
-        this.journal  = new Journal(locale);
+        this.journal  = new Journal(locale, store);
+        this.currency = CurrencyUnit.of(locale);
+        this.currencySymbol = currency.getSymbol(locale);
+        this.currencies = CURRENCIES.computeIfAbsent(locale, LedgerReader::getCurrencies);
+        var symbols = DecimalFormatSymbols.getInstance(locale);
+        this.decimalSeparator = symbols.getMonetaryDecimalSeparator();
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.payees = new ConcurrentHashMap<>();
+        this.dates = new ConcurrentHashMap<>();
+        this.metrics = Metrics.NONE;
+    }
+
+    /**
+     * Reports the bytes read, the transactions and entries parsed and the parse errors to the
+     * given metrics, which are also set on the journal to report its queries.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        journal.setMetrics(metrics);
+    }
+
+    Metrics getMetrics() {
+        return metrics;
     }
 
     @Override
     public Ledger readJournal(Path filePath) {
+        try (var transactions = streamTransactions(filePath)) {
+            transactions.forEach(journal::addTransaction);
+        }
+        return new Ledger(accounts, journal);
+    }
+
+    /**
+     * Returns a lazy stream of the transactions stored in a file.
+     * The file is read incrementally, so only the transaction being parsed is kept in memory.
+     * The stream must be closed to release the file.
+     */
+    @Override
+    public Stream<Transaction> streamTransactions(Path filePath) {
         try {
-            var content = Files.readString(filePath);
-            var RawTransactions = content.split("(\n\n)|(\n*$)");
-            for (var rawTransaction : RawTransactions) {
-                var transaction = parseTransaction(rawTransaction);
-                journal.addTransaction(transaction);
+            var startTime = metrics.startTime();
+            var event = ParseEvent.start();
+            var scanner = new TransactionScanner(FileChannel.open(filePath));
+            var iterator = new Iterator<Transaction>() {
+                private Transaction next;
+                private long transactions;
+                private long entries;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null) {
+                        next = readNext(scanner);
+                        if (next != null) {
+                            transactions++;
+                            entries += next.entries().size();
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Transaction next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    var transaction = next;
+                    next = null;
+                    return transaction;
+                }
+            };
+            var spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                metrics.parsed(scanner.position(), iterator.transactions, iterator.entries, startTime);
+                event.end(filePath, 0, scanner.position(), iterator.transactions, iterator.entries);
+                close(scanner);
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads a journal lazily, keeping up to 4096 parsed transactions in a cache
+     * (see {@link #readJournalLazily(Path, int)}).
+     */
+    public Ledger readJournalLazily(Path filePath) {
+        return readJournalLazily(filePath, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Reads a journal lazily: the file is scanned once, parsing only the header (date, status and
+     * payee) of each transaction and keeping where its text is, and the entries of a transaction
+     * are parsed when a query needs them, so a query for a few days or payees only parses their
+     * transactions. Up to the given number of parsed transactions are kept in a cache (0 for none).
+     * <p>
+     * Queries with date or payee conditions only parse the transactions that match them, while
+     * the balances of whole accounts and the account tree need the entries of every transaction,
+     * which are then parsed once to index them. Invalid entries are only found when they are parsed.
+     * The file is memory-mapped, and must not change while the journal is in use.
+     */
+    public Ledger readJournalLazily(Path filePath, int cacheSize) {
+        var startTime = metrics.startTime();
+        var event = ParseEvent.start();
+        try (var channel = FileChannel.open(filePath)) {
+            var store = new LazyTransactionStore(this, channel, cacheSize);
+            store.scan(this::parseHeader);
+            metrics.parsed(channel.size(), store.size(), 0, startTime);
+            event.end(filePath, 0, channel.size(), store.size(), 0);
+            var lazyJournal = new Journal(journal.getLocale(), store);
+            lazyJournal.setMetrics(metrics);
+            return new Ledger(accounts, lazyJournal);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads a journal from a file that other programs keep appending to, and returns a follower
+     * that adds the transactions appended later to the same journal (see {@link JournalFollower}).
+     * The file is taken to be at rest when it is first read, so its last transaction is read too.
+     */
+    public JournalFollower follow(Path filePath) {
+        var follower = new JournalFollower(this, filePath);
+        follower.poll(true);
+        return follower;
+    }
+
+    Ledger getLedger() {
+        return new Ledger(accounts, journal);
+    }
+
+    Transaction addTransaction(String rawTransaction) {
+        var transaction = parseTransaction(rawTransaction);
+        journal.addTransaction(transaction);
+        return transaction;
+    }
+
+    /**
+     * Reads a journal parsing the file in parallel, using the common fork/join pool.
+     */
+    public Ledger readJournalInParallel(Path filePath) {
+        return readJournalInParallel(filePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a journal parsing the file in parallel: the file is memory-mapped and split into
+     * chunks aligned on transaction boundaries (blank lines), each chunk is parsed by a task
+     * on the given pool, and the transactions are added to the journal in file order.
+     */
+    public Ledger readJournalInParallel(Path filePath, ForkJoinPool pool) {
+        try (var channel = FileChannel.open(filePath)) {
+            var chunkSize = Math.max(MIN_CHUNK_SIZE, channel.size() / (pool.getParallelism() * 4L));
+            return readJournalInParallel(filePath, channel, pool, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    Ledger readJournalInParallel(Path filePath, FileChannel channel, ForkJoinPool pool, long chunkSize) throws IOException {
+        var size = channel.size();
+        var tasks = new ArrayList<ForkJoinTask<List<Transaction>>>();
+        var start = 0L;
+        while (start < size) {
+            var end = (size - start > chunkSize) ? findTransactionBoundary(channel, start + chunkSize) : size;
+            var chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            var offset = start;
+            tasks.add(pool.submit(() -> parseChunk(chunk, filePath, offset)));
+            start = end;
+        }
+        for (var task : tasks) {
+            task.join().forEach(journal::addTransaction);
+        }
+        return new Ledger(accounts, journal);
+    }
+
+    private List<Transaction> parseChunk(ByteBuffer chunk, Path filePath, long offset) throws IOException {
+        var startTime = metrics.startTime();
+        var event = ParseEvent.start();
+        var transactions = new ArrayList<Transaction>();
+        var entries = 0L;
+        var scanner = new TransactionScanner(chunk);
+        while (scanner.next()) {
+            var transaction = parseTransaction(scanner.text());
+            transactions.add(transaction);
+            entries += transaction.entries().size();
+        }
+        metrics.parsed(chunk.limit(), transactions.size(), entries, startTime);
+        event.end(filePath, offset, chunk.limit(), transactions.size(), entries);
+        return transactions;
+    }
+
+    /**
+     * Returns the position right after the first blank line found from the given position,
+     * or the size of the file if there is none.
+     */
+    private long findTransactionBoundary(FileChannel channel, long position) throws IOException {
+        var buffer = ByteBuffer.allocate(8 * 1024);
+        var afterNewLine = false;
+        while (channel.read(buffer.clear(), position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                var b = buffer.get();
+                position++;
+                if (b == '\n') {
+                    if (afterNewLine) {
+                        return position;
+                    }
+                    afterNewLine = true;
+                } else if (b != ' ' && b != '\t' && b != '\r') {
+                    afterNewLine = false;
+                }
             }
-            return new Ledger(accounts, journal);
+        }
+        return channel.size();
+    }
+
+    private Transaction readNext(TransactionScanner scanner) {
+        try {
+            return scanner.next() ? parseTransaction(scanner.text()) : null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void close(TransactionScanner scanner) {
+        try {
+            scanner.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     protected Transaction parseTransaction(String rawTransaction) {
-        var lines = rawTransaction.split("\n");
+        try {
+            return parse(rawTransaction);
+        } catch (RuntimeException e) {
+            metrics.parseError();
+            throw e;
+        }
+    }
+
+    private Transaction parse(String rawTransaction) {
+        var tokenizer = newTokenizer(rawTransaction);
         // header
-        var header = parseTransactionHeader(lines[0]);
-        var date = LocalDate.parse(header.get(0), DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        var status = (header.get(1) != null) ? getTransactionStatus(header.get(1)) : null;
-        var payee = new Payee(header.get(2));
+        if (!tokenizer.nextLine() || !tokenizer.parseHeader()) {
+            throw new IllegalArgumentException("Invalid transaction header: " + rawTransaction.lines().findFirst().orElse(""));
+        }
+        var date = getDate(tokenizer.year(), tokenizer.month(), tokenizer.day());
+        var status = getTransactionStatus(tokenizer.status());
+        var payee = payees.computeIfAbsent(tokenizer.payee(), Payee::new);
         //entries
         var entries = new ArrayList<Entry>();
-        for (int i = 1; i < lines.length; i++) {
-            var entry = parseEntry(lines[i]);
-            var accountName = entry.get(0);
-            var account = accounts.addAccount(accountName);
-            var amountStr = entry.get(1);
-            var amount = parseAmount(amountStr);
+        while (tokenizer.nextLine()) {
+            if (!tokenizer.parseEntry()) {
+                throw new IllegalArgumentException("Invalid entry in transaction: " + rawTransaction);
+            }
+            var account = accounts.addAccount(tokenizer.account());
+            var amount = tokenizer.parseAmount() ? getAmount(tokenizer) : null;
             entries.add(new Entry(account, amount));
         }
         return new Transaction(date, status, payee, entries);
     }
 
-    private TransactionStatus getTransactionStatus(String statusSymbol) {
+    // parses only the header of a transaction, returning it without entries
+    private Transaction parseHeader(String header) {
+        var tokenizer = newTokenizer(header);
+        if (!tokenizer.nextLine() || !tokenizer.parseHeader()) {
+            metrics.parseError();
+            throw new IllegalArgumentException("Invalid transaction header: " + header);
+        }
+        var date = getDate(tokenizer.year(), tokenizer.month(), tokenizer.day());
+        var payee = payees.computeIfAbsent(tokenizer.payee(), Payee::new);
+        return new Transaction(date, getTransactionStatus(tokenizer.status()), payee, List.of());
+    }
+
+    private LocalDate getDate(int year, int month, int day) {
+        var key = (year * 100 + month) * 100 + day;
+        var date = dates.get(key);
+        return (date != null) ? date : dates.computeIfAbsent(key, k -> LocalDate.of(year, month, day));
+    }
+
+    private TransactionStatus getTransactionStatus(char statusSymbol) {
         return switch (statusSymbol) {
-            case "*" -> TransactionStatus.CLEARED;
-            case "!" -> TransactionStatus.PENDING;
+            case '*' -> TransactionStatus.CLEARED;
+            case '!' -> TransactionStatus.PENDING;
             default -> null;
         };
     }
 
     protected ArrayList<String> parseTransactionHeader(String line) {
-        var pattern = Pattern.compile("(^.*?(?=\\s))\\s?([*!])?\\s(.*)");
-        return getMatches(line, pattern);
+        var matches = new ArrayList<String>();
+        var tokenizer = newTokenizer(line);
+        if (tokenizer.nextLine() && tokenizer.parseHeader()) {
+            var status = tokenizer.status();
+            matches.add(tokenizer.date());
+            matches.add((status != 0) ? String.valueOf(status) : null);
+            matches.add(tokenizer.payee());
+        }
+        return matches;
     }
 
     protected ArrayList<String> parseEntry(String line) {
-        var pattern = Pattern.compile("\\s+(.*?(?=\\s{2,}))\\s+(.*)");
-        return getMatches(line, pattern);
+        var matches = new ArrayList<String>();
+        var tokenizer = newTokenizer(line);
+        if (tokenizer.nextLine() && tokenizer.parseEntry()) {
+            matches.add(tokenizer.account());
+            matches.add(tokenizer.amount());
+        }
+        return matches;
     }
 
     protected Money parseAmount(String amountStr) {
-        Pattern currencyAmountPattern = Pattern.compile("([$£€¥₹]|\\w+)\\s([+-]?\\d+[.,]?\\d*)");
-        var matches = getMatches(amountStr, currencyAmountPattern);
+        var tokenizer = newTokenizer(amountStr);
+        return tokenizer.parseAmountText() ? getAmount(tokenizer) : null;
+    }
 
-        var inputFormatter = new MoneyFormatterBuilder()
-                .appendAmount(MoneyAmountStyle.of(journal.getLocale()))
-                .toFormatter();
-        var startIndex = 0;
+    private LedgerTokenizer newTokenizer(String text) {
+        return new LedgerTokenizer(text, decimalSeparator, groupingSeparator);
+    }
 
-        if (!matches.isEmpty()) {
-            var currencyStr = matches.get(0);
-            startIndex = currencyStr.length() + 1;
+    private Money getAmount(LedgerTokenizer tokenizer) {
+        var amount = tokenizer.isLargeAmount()
+                ? new BigDecimal(tokenizer.number())
+                : BigDecimal.valueOf(tokenizer.unscaledAmount(), tokenizer.scale());
+        var amountCurrency = getCurrency(tokenizer);
+        try {
+            if (amount.scale() > amountCurrency.getDecimalPlaces()) {
+                // trailing zeros beyond the decimal places of the currency are dropped (e.g., "1000,00 JPY")
+                return Money.of(amountCurrency, amount, RoundingMode.UNNECESSARY);
+            }
+            return Money.of(amountCurrency, amount);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount for " + amountCurrency + ": " + tokenizer.amountText(), e);
         }
+    }
 
-        var parsed = inputFormatter.parse(amountStr, startIndex);
-        var onlyAmount = parsed.getAmount();
-        var currency = CurrencyUnit.of(journal.getLocale());
-        if (onlyAmount != null) {
-            return Money.of(currency, onlyAmount);
-        } else {
-            return null;
+    /**
+     * Returns the currency of an amount given its code or symbol (e.g., "USD", "$" or "US$"),
+     * or the currency of the locale if the amount has none.
+     */
+    private CurrencyUnit getCurrency(LedgerTokenizer tokenizer) {
+        // most amounts are in the currency of the locale, so it is checked without building a string
+        if (tokenizer.hasCurrency(currencySymbol)) {
+            return currency;
+        }
+        var symbol = tokenizer.currency();
+        var unit = currencies.get(symbol);
+        if (unit == null) {
+            throw new IllegalArgumentException("Unknown currency: " + symbol);
         }
+        return unit;
     }
 
-    private ArrayList<String> getMatches(String line, Pattern pattern) {
-        var matches = new ArrayList<String>();
-        var matcher = pattern.matcher(line);
-        if (matcher.find()) {
-            for (int i = 1; i <= matcher.groupCount(); i++) {
-                matches.add(matcher.group(i));
-            }
+    /**
+     * Returns the currencies by code and by their symbol in a locale. The currency of the locale
+     * takes precedence over other currencies with the same symbol (e.g., "¥" is CNY for China),
+     * followed by the usual symbols of the main currencies. Symbols shared by several currencies
+     * are always the currency of the locale, as amounts without a currency (so "$" is USD in the
+     * United States, but EUR in Spain, where the dollar is "US$").
+     */
+    private static Map<String, CurrencyUnit> getCurrencies(Locale locale) {
+        var currencies = new HashMap<String, CurrencyUnit>();
+        var registered = CurrencyUnit.registeredCurrencies();
+        for (var unit : registered) {
+            currencies.put(unit.getCode(), unit);
         }
-        return matches;
+        var localCurrency = CurrencyUnit.of(locale);
+        currencies.put(localCurrency.getSymbol(locale), localCurrency);
+        for (var symbol : AMBIGUOUS_SYMBOLS) {
+            currencies.putIfAbsent(symbol, localCurrency);
+        }
+        currencies.putIfAbsent("€", CurrencyUnit.EUR);
+        currencies.putIfAbsent("£", CurrencyUnit.GBP);
+        for (var unit : registered) {
+            currencies.putIfAbsent(unit.getSymbol(locale), unit);
+        }
+        return currencies;
     }
-}
\ No newline at end of file
+}
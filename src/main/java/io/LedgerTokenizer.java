@@ -0,0 +1,344 @@
+package io;
+
+/**
+ * Single-pass tokenizer for the lines of a raw transaction in the Ledger format.
+ * It works directly over the characters of the transaction, keeping the tokens of the
+ * current line as positions and numbers, so no regular expressions or intermediate
+ * strings are needed.
+ */
+
+class LedgerTokenizer {
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final CharSequence text;
+    private final char decimalSeparator;
+    private final char groupingSeparator;
+    private int position;
+    private int lineStart;
+    private int lineEnd;
+
+    // header tokens
+    private int dateEnd;
+    private int year;
+    private int month;
+    private int day;
+    private char status;
+    private int payeeStart;
+    private int payeeEnd;
+
+    // entry tokens
+    private int accountStart;
+    private int accountEnd;
+    private int amountStart;
+    private int amountEnd;
+
+    // amount tokens
+    private int amountTextStart;
+    private int amountTextEnd;
+    private int currencyStart;
+    private int currencyEnd;
+    private boolean negativeAmount;
+    private long unscaledAmount;
+    private int scale;
+    private int digitsStart;
+    private int digitsEnd;
+    private boolean largeAmount;
+
+    LedgerTokenizer(CharSequence text, char decimalSeparator, char groupingSeparator) {
+        this.text = text;
+        this.decimalSeparator = decimalSeparator;
+        this.groupingSeparator = groupingSeparator;
+    }
+
+    /**
+     * Advances to the next line that is neither blank nor a comment.
+     * Returns false when there are no more lines.
+     */
+    boolean nextLine() {
+        var length = text.length();
+        while (position < length) {
+            lineStart = position;
+            while (position < length && text.charAt(position) != '\n') {
+                position++;
+            }
+            lineEnd = trimEnd(lineStart, position);
+            position++;
+            var first = skipWhitespace(lineStart, lineEnd);
+            if (first < lineEnd && text.charAt(first) != ';') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tokenizes the current line as a transaction header: date, optional status flag and payee.
+     * Returns false if the line is not a valid header.
+     */
+    boolean parseHeader() {
+        var i = lineStart;
+        // date
+        var yearEnd = skipDigits(i, lineEnd);
+        if (yearEnd == i || yearEnd >= lineEnd || !isDateSeparator(text.charAt(yearEnd))) return false;
+        var monthEnd = skipDigits(yearEnd + 1, lineEnd);
+        if (monthEnd == yearEnd + 1 || monthEnd >= lineEnd || !isDateSeparator(text.charAt(monthEnd))) return false;
+        var dayEnd = skipDigits(monthEnd + 1, lineEnd);
+        if (dayEnd == monthEnd + 1 || dayEnd >= lineEnd || !isWhitespace(text.charAt(dayEnd))) return false;
+        this.dateEnd = dayEnd;
+        year = parseInt(i, yearEnd);
+        month = parseInt(yearEnd + 1, monthEnd);
+        day = parseInt(monthEnd + 1, dayEnd);
+        // status
+        i = skipWhitespace(dayEnd, lineEnd);
+        status = 0;
+        if (i + 1 < lineEnd && (text.charAt(i) == '*' || text.charAt(i) == '!') && isWhitespace(text.charAt(i + 1))) {
+            status = text.charAt(i);
+            i = skipWhitespace(i + 1, lineEnd);
+        }
+        // payee
+        if (i == lineEnd) return false;
+        payeeStart = i;
+        payeeEnd = lineEnd;
+        return true;
+    }
+
+    /**
+     * Tokenizes the current line as an entry: an indented account name, followed by a
+     * separator of at least two spaces (or a tab) and the amount.
+     * Returns false if the line is not a valid entry.
+     */
+    boolean parseEntry() {
+        var i = skipWhitespace(lineStart, lineEnd);
+        if (i == lineStart || i == lineEnd) return false;
+        accountStart = i;
+        while (i < lineEnd && !isSeparator(i)) {
+            i++;
+        }
+        accountEnd = i;
+        amountStart = skipWhitespace(i, lineEnd);
+        amountEnd = lineEnd;
+        return amountStart < amountEnd;
+    }
+
+    /**
+     * Tokenizes the amount of the current entry.
+     */
+    boolean parseAmount() {
+        return parseAmount(amountStart, amountEnd);
+    }
+
+    /**
+     * Tokenizes the whole text as an amount.
+     */
+    boolean parseAmountText() {
+        return parseAmount(0, trimEnd(0, text.length()));
+    }
+
+    /**
+     * Tokenizes an amount: a number with an optional currency symbol or code before or after it.
+     * Returns false if there is no valid number.
+     */
+    private boolean parseAmount(int start, int end) {
+        currencyStart = currencyEnd = -1;
+        var i = skipWhitespace(start, end);
+        amountTextStart = i;
+        amountTextEnd = end;
+        // currency before the number
+        if (i < end && !isNumberStart(text.charAt(i))) {
+            currencyStart = i;
+            while (i < end && !isWhitespace(text.charAt(i)) && !isNumberStart(text.charAt(i))) {
+                i++;
+            }
+            currencyEnd = i;
+            i = skipWhitespace(i, end);
+        }
+        // number
+        negativeAmount = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negativeAmount = text.charAt(i) == '-';
+            i++;
+        }
+        digitsStart = i;
+        var digits = 0;
+        var decimals = -1;
+        var unscaled = 0L;
+        for (; i < end; i++) {
+            var c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (decimals >= 0) decimals++;
+            } else if (c == decimalSeparator && decimals < 0) {
+                decimals = 0;
+            } else if (!(c == groupingSeparator && decimals < 0 && i + 1 < end && isDigit(text.charAt(i + 1)))) {
+                break;
+            }
+        }
+        if (digits == 0) return false;
+        digitsEnd = i;
+        largeAmount = digits > MAX_LONG_DIGITS;
+        unscaledAmount = negativeAmount ? -unscaled : unscaled;
+        scale = Math.max(decimals, 0);
+        // currency after the number
+        i = skipWhitespace(i, end);
+        if (currencyStart < 0 && i < end) {
+            currencyStart = i;
+            while (i < end && !isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            currencyEnd = i;
+        }
+        return true;
+    }
+
+    String date() {
+        return text.subSequence(lineStart, dateEnd).toString();
+    }
+
+    int year() {
+        return year;
+    }
+
+    int month() {
+        return month;
+    }
+
+    int day() {
+        return day;
+    }
+
+    /**
+     * Returns the status flag of the header ('*' or '!'), or 0 if there is none.
+     */
+    char status() {
+        return status;
+    }
+
+    String payee() {
+        return text.subSequence(payeeStart, payeeEnd).toString();
+    }
+
+    String account() {
+        return text.subSequence(accountStart, accountEnd).toString();
+    }
+
+    String amount() {
+        return text.subSequence(amountStart, amountEnd).toString();
+    }
+
+    /**
+     * Returns the text of the last amount tokenized, with its currency.
+     */
+    String amountText() {
+        return text.subSequence(amountTextStart, amountTextEnd).toString();
+    }
+
+    /**
+     * Returns the currency symbol or code of the amount, or null if there is none.
+     */
+    String currency() {
+        return (currencyStart >= 0) ? text.subSequence(currencyStart, currencyEnd).toString() : null;
+    }
+
+    /**
+     * Returns true if the amount has no currency, or has the given one,
+     * without building a string for the currency of the amount.
+     */
+    boolean hasCurrency(String symbol) {
+        if (currencyStart < 0) {
+            return true;
+        }
+        var length = currencyEnd - currencyStart;
+        if (length != symbol.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(currencyStart + i) != symbol.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the digits of the number without the currency, only needed when the number
+     * does not fit in a long (see {@link #isLargeAmount()}).
+     */
+    String number() {
+        var number = new StringBuilder();
+        if (negativeAmount) {
+            number.append('-');
+        }
+        for (int i = digitsStart; i < digitsEnd; i++) {
+            var c = text.charAt(i);
+            if (isDigit(c)) {
+                number.append(c);
+            } else if (c == decimalSeparator) {
+                number.append('.');
+            }
+        }
+        return number.toString();
+    }
+
+    long unscaledAmount() {
+        return unscaledAmount;
+    }
+
+    int scale() {
+        return scale;
+    }
+
+    boolean isLargeAmount() {
+        return largeAmount;
+    }
+
+    private boolean isSeparator(int i) {
+        var c = text.charAt(i);
+        return c == '\t' || (c == ' ' && i + 1 < lineEnd && isWhitespace(text.charAt(i + 1)));
+    }
+
+    private boolean isNumberStart(char c) {
+        return isDigit(c) || c == '-' || c == '+' || c == decimalSeparator;
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '/' || c == '-';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private int skipWhitespace(int i, int end) {
+        while (i < end && isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipDigits(int i, int end) {
+        while (i < end && isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private int parseInt(int start, int end) {
+        var value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+}
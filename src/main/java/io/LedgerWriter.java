@@ -2,15 +2,26 @@ package io;
 
 import core.Entry;
 import core.Journal;
+import core.Metrics;
 import core.Transaction;
 import org.joda.money.format.MoneyAmountStyle;
+import org.joda.money.format.MoneyFormatter;
 import org.joda.money.format.MoneyFormatterBuilder;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -22,78 +33,260 @@ import java.util.Locale;
 
 
 public class LedgerWriter implements Writer {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private Locale formatterLocale;
+    private MoneyFormatter formatter;
+    private Metrics metrics = Metrics.NONE;
+
+    /**
+     * Reports the bytes written to files, and the times they are forced to the storage device, to the given metrics.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
 
     @Override
     public void writeJournal(Journal journal) {
-        var transactions = journal.getTransactions();
-        for (var t : transactions) {
-            var header = buildHeader(t);
-            System.out.println(header);
-            var entries = t.entries();
-            for (var e : entries) {
-                var entry = buildEntry(e, journal.getLocale());
-                System.out.println(entry);
+        try {
+            var writer = new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE);
+            var event = WriteEvent.start();
+            var size = write(journal, writer);
+            event.end(null, journal.getTransactions().size(), size, false);
+            // also add a new line after the last transaction
+            if (!journal.getTransactions().isEmpty()) {
+                writer.write('\n');
             }
-            System.out.println();
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
     @Override
     public void writeJournal(Journal journal, Path path) throws IOException {
-        Files.write(path, "".getBytes());  // truncate the file if it exists, or create it if it doesn't exist
-        var transactions = journal.getTransactions();
-        // using a classic for loop because we need to do something different in the last transaction
-        for (int i = 0; i < transactions.size(); i++) {
-            var transaction = transactions.get(i);
-            // write header
-            var header = buildHeader(transaction) + "\n";
-            Files.write(path, header.getBytes(), StandardOpenOption.APPEND);
-            // write entries
-            var entries = transaction.entries();
-            for (var e : entries) {
-                var entry = buildEntry(e, journal.getLocale()) + "\n";
-                Files.write(path, entry.getBytes(), StandardOpenOption.APPEND);
+        writeJournal(journal, path, false);
+    }
+
+    /**
+     * Writes a journal to a file through a single buffered channel,
+     * forcing the content to the storage device at the end if {@code sync} is true.
+     */
+    public void writeJournal(Journal journal, Path path, boolean sync) throws IOException {
+        var options = new StandardOpenOption[] {
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        };
+        try (var channel = FileChannel.open(path, options)) {
+            var startTime = metrics.startTime();
+            var event = WriteEvent.start();
+            var writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            var size = write(journal, writer);
+            writer.flush();
+            if (sync) {
+                channel.force(true);
+                metrics.synced();
+            }
+            metrics.written(channel.position(), startTime);
+            event.end(path, journal.getTransactions().size(), size, sync);
+        }
+        // the file has been rewritten, so a previous high-water mark no longer applies
+        Files.deleteIfExists(HighWaterMark.getPath(path));
+    }
+
+    /**
+     * Appends to a file the transactions of a journal added since the last time they were appended
+     * to it, so each call costs the size of the new transactions instead of the whole journal.
+     * The new transactions are encoded into a single buffer, which is written to the file in one
+     * channel write (repeated only while the channel writes part of it) and, if {@code sync} is true,
+     * forced to the storage device. Returns the number of transactions appended.
+     * <p>
+     * The number of transactions and bytes already in the file (its high-water mark) is kept in a
+     * ".mark" file next to it, and is only updated once the transactions have been written. So the
+     * file may be longer than its mark if the process stopped between both writes: the bytes past
+     * the mark are then written again, but only if they are the start of the new transactions.
+     * Any other bytes past the mark (e.g., transactions appended by another program) are kept,
+     * and an {@link IllegalStateException} is thrown. A file without a mark is scanned once to
+     * count its transactions.
+     */
+    public int appendJournal(Journal journal, Path path, boolean sync) throws IOException {
+        var options = new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ };
+        try (var channel = FileChannel.open(path, options)) {
+            var mark = HighWaterMark.read(path);
+            if (mark == null) {
+                mark = new HighWaterMark(countTransactions(channel), channel.size());
+            } else if (channel.size() < mark.getSize()) {
+                throw new IllegalStateException("Journal file shorter than its high-water mark: " + path);
+            }
+            var transactions = journal.getTransactions();
+            if (transactions.size() < mark.getTransactions()) {
+                throw new IllegalArgumentException("The journal has fewer transactions than the file: " + path);
+            }
+            if (transactions.size() == mark.getTransactions()) {
+                if (channel.size() > mark.getSize()) {
+                    throw new IllegalStateException("Journal file modified since its high-water mark: " + path);
+                }
+                return 0;
+            }
+            var startTime = metrics.startTime();
+            var event = WriteEvent.start();
+            var batch = new StringBuilder(BUFFER_SIZE);
+            if (mark.getSize() > 0) {
+                // separate the new transactions from the last one with a blank line
+                batch.append(endsWithNewLine(channel, mark.getSize()) ? "\n" : "\n\n");
+            }
+            var added = transactions.subList(mark.getTransactions(), transactions.size());
+            var size = appendTransactions(added, getFormatter(journal.getLocale()), batch);
+            // a writer over the channel would split the batch into several writes of its encoder's buffer size
+            var bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(batch));
+            if (!isWrittenPart(channel, mark.getSize(), bytes)) {
+                throw new IllegalStateException("Journal file modified since its high-water mark: " + path);
             }
+            channel.position(mark.getSize());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (sync) {
+                channel.force(true);
+                metrics.synced();
+            }
+            new HighWaterMark(transactions.size(), channel.position()).write(path, sync);
+            if (sync) {
+                metrics.synced();
+            }
+            metrics.written(channel.position() - mark.getSize(), startTime);
+            event.end(path, added.size(), size, sync);
+            return added.size();
+        }
+    }
+
+    private static int countTransactions(FileChannel channel) throws IOException {
+        var count = 0;
+        var scanner = new TransactionScanner(channel);
+        while (scanner.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if the bytes of the file past its high-water mark, if any, are the start of the
+     * given ones (i.e., they were written by a previous call that stopped before updating the mark).
+     */
+    private static boolean isWrittenPart(FileChannel channel, long markSize, ByteBuffer bytes) throws IOException {
+        var extra = channel.size() - markSize;
+        if (extra == 0) {
+            return true;
+        }
+        if (extra > bytes.remaining()) {
+            return false;
+        }
+        var written = ByteBuffer.allocate((int) extra);
+        while (written.hasRemaining() && channel.read(written, markSize + written.position()) >= 0) {
+            // the file may be read in several parts
+        }
+        return written.flip().equals(bytes.slice(bytes.position(), (int) extra));
+    }
+
+    private static boolean endsWithNewLine(FileChannel channel, long size) throws IOException {
+        var last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        return last.get(0) == '\n';
+    }
+
+    /**
+     * Writes a journal to an output stream, encoded as UTF-8. The stream is flushed but not closed.
+     */
+    public void writeJournal(Journal journal, OutputStream output) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        var event = WriteEvent.start();
+        var size = write(journal, writer);
+        writer.flush();
+        event.end(null, journal.getTransactions().size(), size, false);
+    }
+
+    @Override
+    public void writeJournal(Journal journal, Appendable output) throws IOException {
+        var event = WriteEvent.start();
+        var size = write(journal, output);
+        event.end(null, journal.getTransactions().size(), size, false);
+    }
+
+    private long write(Journal journal, Appendable output) throws IOException {
+        return appendTransactions(journal.getTransactions(), getFormatter(journal.getLocale()), output);
+    }
+
+    /**
+     * Writes the given transactions to an output, and returns the number of characters written.
+     */
+    private long appendTransactions(List<Transaction> transactions, MoneyFormatter formatter, Appendable output) throws IOException {
+        var size = 0L;
+        var buffer = new StringBuilder(256);
+        var amountBuffer = new StringBuilder(32);
+        var first = true;
+        for (var transaction : transactions) {
+            buffer.setLength(0);
             // add a new line between transactions, but not after the last one
-            if (i < transactions.size() - 1) {
-                Files.write(path, "\n".getBytes(), StandardOpenOption.APPEND);
+            if (!first) {
+                buffer.append('\n');
             }
+            first = false;
+            appendHeader(buffer, transaction).append('\n');
+            for (var entry : transaction.entries()) {
+                appendEntry(buffer, entry, formatter, amountBuffer).append('\n');
+            }
+            output.append(buffer);
+            size += buffer.length();
         }
+        return size;
     }
 
     protected String buildHeader(Transaction t) {
-        var header = new StringBuilder();
+        return appendHeader(new StringBuilder(), t).toString();
+    }
 
-        var date = t.date().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-        var status = t.status();
-        var payee = t.payee().name();
+    protected String buildEntry(Entry e, Locale locale) {
+        return appendEntry(new StringBuilder(), e, getFormatter(locale), new StringBuilder()).toString();
+    }
 
-        header.append(date);
+    private StringBuilder appendHeader(StringBuilder header, Transaction t) {
+        DATE_FORMATTER.formatTo(t.date(), header);
+        var status = t.status();
         if (status != null) {
             switch (status) {
                 case CLEARED -> header.append(" *");
                 case PENDING -> header.append(" ?");
             }
         }
-        header.append(" ").append(payee);
-        return header.toString();
+        return header.append(' ').append(t.payee().name());
     }
 
-    protected String buildEntry(Entry e, Locale locale) {
-        var entry = new StringBuilder();
-
+    private StringBuilder appendEntry(StringBuilder entry, Entry e, MoneyFormatter formatter, StringBuilder amountBuffer) {
         var accountName = e.account().getName();
-        entry.append(String.format("    %-40s", accountName));
-
-        var formatter = new MoneyFormatterBuilder()
-                .appendAmount(MoneyAmountStyle.of(locale))
-                .appendLiteral(" ")
-                .appendCurrencySymbolLocalized()
-                .toFormatter();
-        var amount = e.amount();
-        var formattedAmount = formatter.print(amount);
-        entry.append(String.format("%20s", formattedAmount));
-
-        return entry.toString();
+        entry.append("    ").append(accountName);
+        pad(entry, 40 - accountName.length());
+
+        amountBuffer.setLength(0);
+        formatter.print(amountBuffer, e.amount());
+        pad(entry, 20 - amountBuffer.length());
+        return entry.append(amountBuffer);
+    }
+
+    private static void pad(StringBuilder builder, int count) {
+        for (int i = 0; i < count; i++) {
+            builder.append(' ');
+        }
+    }
+
+    private MoneyFormatter getFormatter(Locale locale) {
+        if (!locale.equals(formatterLocale)) {
+            formatter = new MoneyFormatterBuilder()
+                    .appendAmount(MoneyAmountStyle.of(locale))
+                    .appendLiteral(" ")
+                    .appendCurrencySymbolLocalized()
+                    .toFormatter();
+            formatterLocale = locale;
+        }
+        return formatter;
     }
 }
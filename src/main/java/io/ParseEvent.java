@@ -0,0 +1,62 @@
+package io;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of a part of a journal file parsed at once: the whole file when it is
+ * read sequentially, each chunk when it is read in parallel, or the bytes appended to a followed
+ * file since the last poll. Recorded whatever it takes, unless the recording sets a threshold
+ * (e.g., {@code ledger.Parse#threshold=10 ms}).
+ */
+
+@Name("ledger.Parse")
+@Label("Journal Parse")
+@Category("Ledger")
+@Description("Part of a journal file read and parsed at once")
+@Threshold("0 ms")
+class ParseEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Offset")
+    @Description("Position of the part in the file")
+    @DataAmount
+    long offset;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Transactions")
+    long transactions;
+
+    @Label("Entries")
+    long entries;
+
+    static ParseEvent start() {
+        var event = new ParseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold.
+     */
+    void end(Object file, long offset, long size, long transactions, long entries) {
+        end();
+        if (shouldCommit()) {
+            this.file = (file != null) ? file.toString() : null;
+            this.offset = offset;
+            this.size = size;
+            this.transactions = transactions;
+            this.entries = entries;
+            commit();
+        }
+    }
+}
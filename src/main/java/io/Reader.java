@@ -1,9 +1,12 @@
 package io;
 
 import core.Ledger;
+import core.Transaction;
 
 import java.nio.file.Path;
+import java.util.stream.Stream;
 
 public interface Reader {
     Ledger readJournal(Path filePath);
+    Stream<Transaction> streamTransactions(Path filePath);
 }
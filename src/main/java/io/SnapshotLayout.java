@@ -0,0 +1,125 @@
+package io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of a binary snapshot of a journal. All numbers are little-endian, and the file is:
+ * <ul>
+ *   <li>a header of 10 ints: magic number, version, number of transactions, entries, strings,
+ *   bytes of the strings, accounts and large amounts, the id of the locale and a reserved int;</li>
+ *   <li>the amount of each entry, as a long number of minor units (8-byte aligned), or 0 for
+ *   the amounts that do not fit in a long and the entries without an amount;</li>
+ *   <li>the date (epoch day), payee (string id) and position of the first entry of each
+ *   transaction, plus the end of the entries of the last one;</li>
+ *   <li>the account and currency (string ids) of each entry, with -1 as the currency of the
+ *   entries without an amount;</li>
+ *   <li>the accounts of the journal (string ids);</li>
+ *   <li>the amounts that do not fit in a long (entry and string id of the number);</li>
+ *   <li>the offset of each string, plus the end of the last one;</li>
+ *   <li>the status of each transaction (a byte);</li>
+ *   <li>the strings (accounts, payees, currencies, locale), encoded as UTF-8.</li>
+ * </ul>
+ * Every column has a fixed width, so any field can be read directly by position.
+ */
+
+class SnapshotLayout {
+    static final int MAGIC = 0x504E534C; // "LSNP"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 40;
+
+    final int transactionCount;
+    final int entryCount;
+    final int stringCount;
+    final int stringBytes;
+    final int accountCount;
+    final int largeCount;
+    final int localeId;
+
+    final int amountsOffset;
+    final int daysOffset;
+    final int payeesOffset;
+    final int firstEntriesOffset;
+    final int accountsOffset;
+    final int currenciesOffset;
+    final int accountListOffset;
+    final int largeAmountsOffset;
+    final int stringOffsetsOffset;
+    final int statusesOffset;
+    final int stringBytesOffset;
+    final long size;
+
+    SnapshotLayout(int transactionCount, int entryCount, int stringCount, int stringBytes,
+                   int accountCount, int largeCount, int localeId) {
+        this.transactionCount = transactionCount;
+        this.entryCount = entryCount;
+        this.stringCount = stringCount;
+        this.stringBytes = stringBytes;
+        this.accountCount = accountCount;
+        this.largeCount = largeCount;
+        this.localeId = localeId;
+
+        long offset = HEADER_SIZE;
+        amountsOffset = checked(offset);
+        offset += 8L * entryCount;
+        daysOffset = checked(offset);
+        offset += 4L * transactionCount;
+        payeesOffset = checked(offset);
+        offset += 4L * transactionCount;
+        firstEntriesOffset = checked(offset);
+        offset += 4L * (transactionCount + 1);
+        accountsOffset = checked(offset);
+        offset += 4L * entryCount;
+        currenciesOffset = checked(offset);
+        offset += 4L * entryCount;
+        accountListOffset = checked(offset);
+        offset += 4L * accountCount;
+        largeAmountsOffset = checked(offset);
+        offset += 8L * largeCount;
+        stringOffsetsOffset = checked(offset);
+        offset += 4L * (stringCount + 1);
+        statusesOffset = checked(offset);
+        offset += transactionCount;
+        stringBytesOffset = checked(offset);
+        offset += stringBytes;
+        size = checked(offset);
+    }
+
+    void writeHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(transactionCount)
+                .putInt(entryCount)
+                .putInt(stringCount)
+                .putInt(stringBytes)
+                .putInt(accountCount)
+                .putInt(largeCount)
+                .putInt(localeId)
+                .putInt(0);
+    }
+
+    /**
+     * Reads the header of a snapshot, at the beginning of the buffer.
+     */
+    static SnapshotLayout readHeader(ByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a journal snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported journal snapshot version: " + buffer.getInt(4));
+        }
+        var layout = new SnapshotLayout(buffer.getInt(8), buffer.getInt(12), buffer.getInt(16), buffer.getInt(20),
+                buffer.getInt(24), buffer.getInt(28), buffer.getInt(32));
+        if (layout.size != buffer.limit()) {
+            throw new IllegalArgumentException("Truncated journal snapshot");
+        }
+        return layout;
+    }
+
+    // memory-mapped buffers are indexed by int, so snapshots are limited to 2 GB
+    private static int checked(long offset) {
+        if (offset > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal snapshot larger than 2 GB");
+        }
+        return (int) offset;
+    }
+}
@@ -0,0 +1,44 @@
+package io;
+
+import core.ChartOfAccounts;
+import core.Journal;
+import core.Ledger;
+import core.Transaction;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Reads a journal from a binary snapshot written by a {@link SnapshotWriter}. The snapshot
+ * is memory-mapped and its transactions are read in place, so opening it only takes the time
+ * to register its accounts, however many transactions it has. The journal is indexed the
+ * first time it is queried.
+ */
+
+public class SnapshotReader implements Reader {
+
+    @Override
+    public Ledger readJournal(Path filePath) {
+        var accounts = new ChartOfAccounts();
+        var store = openStore(filePath, accounts);
+        return new Ledger(accounts, new Journal(store.getLocale(), store));
+    }
+
+    @Override
+    public Stream<Transaction> streamTransactions(Path filePath) {
+        return readJournal(filePath).getTransactions().stream();
+    }
+
+    private static SnapshotTransactionStore openStore(Path filePath, ChartOfAccounts accounts) {
+        // the mapping stays valid after the channel is closed
+        try (var channel = FileChannel.open(filePath)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SnapshotTransactionStore(buffer.order(ByteOrder.LITTLE_ENDIAN), accounts);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
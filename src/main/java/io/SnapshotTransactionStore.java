@@ -0,0 +1,240 @@
+package io;
+
+import core.*;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stores the transactions of a journal snapshot, reading their fields directly from the
+ * columns of the (memory-mapped) snapshot, so opening it does not parse or copy them.
+ * Strings are only decoded the first time they are used. Transactions added after opening
+ * the snapshot are kept in memory, in a {@link ColumnarTransactionStore}.
+ */
+
+class SnapshotTransactionStore implements TransactionStore {
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private final ByteBuffer buffer;
+    private final SnapshotLayout layout;
+    private final ChartOfAccounts accounts;
+    // decoded strings, payees and currencies, by string id
+    private final String[] strings;
+    private final Payee[] payees;
+    private final CurrencyUnit[] currencies;
+    // account ids, by string id
+    private final int[] accountIds;
+    // amounts that do not fit in a long, by entry position
+    private final Map<Integer, Money> largeAmounts;
+    private final BitSet largePositions;
+    private final TransactionStore appended;
+
+    SnapshotTransactionStore(ByteBuffer buffer, ChartOfAccounts accounts) {
+        this.buffer = buffer;
+        this.layout = SnapshotLayout.readHeader(buffer);
+        this.accounts = accounts;
+        this.strings = new String[layout.stringCount];
+        this.payees = new Payee[layout.stringCount];
+        this.currencies = new CurrencyUnit[layout.stringCount];
+        this.accountIds = new int[layout.stringCount];
+        Arrays.fill(accountIds, -1);
+        for (int i = 0; i < layout.accountCount; i++) {
+            var id = buffer.getInt(layout.accountListOffset + 4 * i);
+            accountIds[id] = accounts.addAccount(getString(id)).getId();
+        }
+        this.largeAmounts = new HashMap<>();
+        this.largePositions = new BitSet();
+        for (int i = 0; i < layout.largeCount; i++) {
+            var offset = layout.largeAmountsOffset + 8 * i;
+            var position = buffer.getInt(offset);
+            var amount = new BigDecimal(getString(buffer.getInt(offset + 4)));
+            largeAmounts.put(position, Money.of(getCurrency(position), amount));
+            largePositions.set(position);
+        }
+        this.appended = new ColumnarTransactionStore(accounts);
+    }
+
+    Locale getLocale() {
+        return Locale.forLanguageTag(getString(layout.localeId));
+    }
+
+    @Override
+    public void add(Transaction transaction) {
+        appended.add(transaction);
+    }
+
+    @Override
+    public int size() {
+        return layout.transactionCount + appended.size();
+    }
+
+    @Override
+    public Transaction get(int index) {
+        if (index >= layout.transactionCount) {
+            return appended.get(index - layout.transactionCount);
+        }
+        var first = getFirstEntry(index);
+        var last = getFirstEntry(index + 1);
+        var entries = new ArrayList<Entry>(last - first);
+        for (int i = first; i < last; i++) {
+            entries.add(new Entry(getAccount(i), getAmount(i)));
+        }
+        return new Transaction(getDate(index), getStatus(index), getPayee(index), entries);
+    }
+
+    @Override
+    public LocalDate getDate(int index) {
+        if (index >= layout.transactionCount) {
+            return appended.getDate(index - layout.transactionCount);
+        }
+        return LocalDate.ofEpochDay(buffer.getInt(layout.daysOffset + 4 * index));
+    }
+
+    @Override
+    public TransactionStatus getStatus(int index) {
+        if (index >= layout.transactionCount) {
+            return appended.getStatus(index - layout.transactionCount);
+        }
+        var status = buffer.get(layout.statusesOffset + index);
+        return (status != 0) ? STATUSES[status - 1] : null;
+    }
+
+    @Override
+    public Payee getPayee(int index) {
+        if (index >= layout.transactionCount) {
+            return appended.getPayee(index - layout.transactionCount);
+        }
+        var id = buffer.getInt(layout.payeesOffset + 4 * index);
+        var payee = payees[id];
+        if (payee == null) {
+            payee = new Payee(getString(id));
+            payees[id] = payee;
+        }
+        return payee;
+    }
+
+    @Override
+    public int getEntryCount(int index) {
+        if (index >= layout.transactionCount) {
+            return appended.getEntryCount(index - layout.transactionCount);
+        }
+        return getFirstEntry(index + 1) - getFirstEntry(index);
+    }
+
+    @Override
+    public Entry getEntry(int index, int entry) {
+        if (index >= layout.transactionCount) {
+            return appended.getEntry(index - layout.transactionCount, entry);
+        }
+        var position = getFirstEntry(index) + entry;
+        return new Entry(getAccount(position), getAmount(position));
+    }
+
+    @Override
+    public Account getAccount(int index, int entry) {
+        if (index >= layout.transactionCount) {
+            return appended.getAccount(index - layout.transactionCount, entry);
+        }
+        return getAccount(getFirstEntry(index) + entry);
+    }
+
+    @Override
+    public Money getAmount(int index, int entry) {
+        if (index >= layout.transactionCount) {
+            return appended.getAmount(index - layout.transactionCount, entry);
+        }
+        return getAmount(getFirstEntry(index) + entry);
+    }
+
+    @Override
+    public void addAmount(int index, int entry, AmountAccumulator accumulator) {
+        if (index >= layout.transactionCount) {
+            appended.addAmount(index - layout.transactionCount, entry, accumulator);
+            return;
+        }
+        var position = getFirstEntry(index) + entry;
+        if (largePositions.get(position)) {
+            accumulator.add(largeAmounts.get(position));
+            return;
+        }
+        var currency = getCurrency(position);
+        if (currency != null) {
+            accumulator.add(currency, buffer.getLong(layout.amountsOffset + 8 * position));
+        }
+    }
+
+    @Override
+    public CurrencyUnit getCurrency(int index, int entry) {
+        if (index >= layout.transactionCount) {
+            return appended.getCurrency(index - layout.transactionCount, entry);
+        }
+        return getCurrency(getFirstEntry(index) + entry);
+    }
+
+    @Override
+    public long getAmountMinor(int index, int entry) {
+        if (index >= layout.transactionCount) {
+            return appended.getAmountMinor(index - layout.transactionCount, entry);
+        }
+        var position = getFirstEntry(index) + entry;
+        if (largePositions.get(position)) {
+            return largeAmounts.get(position).getAmountMinorLong();
+        }
+        return buffer.getLong(layout.amountsOffset + 8 * position);
+    }
+
+    private int getFirstEntry(int index) {
+        return buffer.getInt(layout.firstEntriesOffset + 4 * index);
+    }
+
+    private Account getAccount(int position) {
+        var id = buffer.getInt(layout.accountsOffset + 4 * position);
+        return accounts.getAccount(accountIds[id]);
+    }
+
+    private Money getAmount(int position) {
+        if (largePositions.get(position)) {
+            return largeAmounts.get(position);
+        }
+        var currency = getCurrency(position);
+        return (currency != null) ? Money.ofMinor(currency, buffer.getLong(layout.amountsOffset + 8 * position)) : null;
+    }
+
+    // the currency of an entry, or null if it has no amount
+    private CurrencyUnit getCurrency(int position) {
+        var id = buffer.getInt(layout.currenciesOffset + 4 * position);
+        if (id < 0) {
+            return null;
+        }
+        var currency = currencies[id];
+        if (currency == null) {
+            currency = CurrencyUnit.of(getString(id));
+            currencies[id] = currency;
+        }
+        return currency;
+    }
+
+    // decodes a string the first time it is requested (racing threads just decode it twice)
+    private String getString(int id) {
+        var string = strings[id];
+        if (string == null) {
+            var start = buffer.getInt(layout.stringOffsetsOffset + 4 * id);
+            var end = buffer.getInt(layout.stringOffsetsOffset + 4 * (id + 1));
+            var bytes = new byte[end - start];
+            buffer.get(layout.stringBytesOffset + start, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = string;
+        }
+        return string;
+    }
+}
@@ -0,0 +1,204 @@
+package io;
+
+import core.Journal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a journal as a binary snapshot (see {@link SnapshotLayout}), which can be opened
+ * again with a {@link SnapshotReader} without parsing the text of the journal. Snapshots are
+ * binary, so unlike the {@link Writer} of the text format, they are written to files or streams.
+ */
+
+public class SnapshotWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public void writeJournal(Journal journal, Path path) throws IOException {
+        var options = new StandardOpenOption[] {
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        };
+        try (var channel = FileChannel.open(path, options)) {
+            write(journal, channel);
+        }
+    }
+
+    /**
+     * Writes a snapshot of a journal to an output stream. The stream is flushed but not closed.
+     */
+    public void writeJournal(Journal journal, OutputStream output) throws IOException {
+        write(journal, Channels.newChannel(output));
+        output.flush();
+    }
+
+    private void write(Journal journal, WritableByteChannel channel) throws IOException {
+        var snapshot = new Columns(journal);
+        var layout = snapshot.getLayout();
+        var output = new Output(channel);
+        layout.writeHeader(output.reserve(SnapshotLayout.HEADER_SIZE));
+        for (int i = 0; i < snapshot.entryCount; i++) {
+            output.reserve(8).putLong(snapshot.amounts[i]);
+        }
+        output.putInts(snapshot.days, snapshot.transactionCount);
+        output.putInts(snapshot.payees, snapshot.transactionCount);
+        output.putInts(snapshot.firstEntries, snapshot.transactionCount + 1);
+        output.putInts(snapshot.accounts, snapshot.entryCount);
+        output.putInts(snapshot.currencies, snapshot.entryCount);
+        output.putInts(snapshot.accountList.stream().mapToInt(Integer::intValue).toArray(), snapshot.accountList.size());
+        for (var large : snapshot.largeAmounts.entrySet()) {
+            output.reserve(8).putInt(large.getKey()).putInt(large.getValue());
+        }
+        var offset = 0;
+        for (var string : snapshot.strings) {
+            output.reserve(4).putInt(offset);
+            offset += string.length;
+        }
+        output.reserve(4).putInt(offset);
+        for (int i = 0; i < snapshot.transactionCount; i++) {
+            output.reserve(1).put(snapshot.statuses[i]);
+        }
+        for (var string : snapshot.strings) {
+            output.putBytes(string);
+        }
+        output.flush();
+    }
+
+    /**
+     * The columns of a snapshot, taken from the transactions of a journal.
+     */
+    private static class Columns {
+        private int transactionCount;
+        private int[] days = new int[16];
+        private byte[] statuses = new byte[16];
+        private int[] payees = new int[16];
+        private int[] firstEntries = new int[17];
+        private int entryCount;
+        private long[] amounts = new long[64];
+        private int[] accounts = new int[64];
+        private int[] currencies = new int[64];
+        // string ids of the accounts, which may also be the ids of payees or currencies with the same name
+        private final Set<Integer> accountList = new LinkedHashSet<>();
+        private final Map<Integer, Integer> largeAmounts = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private int stringBytes;
+        private final int localeId;
+
+        private Columns(Journal journal) {
+            localeId = getStringId(journal.getLocale().toLanguageTag());
+            for (var transaction : journal.getTransactions()) {
+                if (transactionCount == days.length) {
+                    var capacity = transactionCount * 2;
+                    days = Arrays.copyOf(days, capacity);
+                    statuses = Arrays.copyOf(statuses, capacity);
+                    payees = Arrays.copyOf(payees, capacity);
+                    firstEntries = Arrays.copyOf(firstEntries, capacity + 1);
+                }
+                var status = transaction.status();
+                days[transactionCount] = (int) transaction.date().toEpochDay();
+                statuses[transactionCount] = (byte) ((status != null) ? status.ordinal() + 1 : 0);
+                payees[transactionCount] = getStringId(transaction.payee().name());
+                for (var entry : transaction.entries()) {
+                    if (entryCount == amounts.length) {
+                        var capacity = entryCount * 2;
+                        amounts = Arrays.copyOf(amounts, capacity);
+                        accounts = Arrays.copyOf(accounts, capacity);
+                        currencies = Arrays.copyOf(currencies, capacity);
+                    }
+                    accounts[entryCount] = getStringId(entry.account().getName());
+                    accountList.add(accounts[entryCount]);
+                    var amount = entry.amount();
+                    currencies[entryCount] = (amount != null) ? getStringId(amount.getCurrencyUnit().getCode()) : -1;
+                    amounts[entryCount] = 0;
+                    if (amount != null) {
+                        try {
+                            amounts[entryCount] = amount.getAmountMinorLong();
+                        } catch (ArithmeticException e) {
+                            largeAmounts.put(entryCount, getStringId(amount.getAmount().toPlainString()));
+                        }
+                    }
+                    entryCount++;
+                }
+                firstEntries[++transactionCount] = entryCount;
+            }
+        }
+
+        private int getStringId(String string) {
+            var id = stringIds.get(string);
+            if (id == null) {
+                id = strings.size();
+                var bytes = string.getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                stringBytes += bytes.length;
+                stringIds.put(string, id);
+            }
+            return id;
+        }
+
+        private SnapshotLayout getLayout() {
+            return new SnapshotLayout(transactionCount, entryCount, strings.size(), stringBytes,
+                    accountList.size(), largeAmounts.size(), localeId);
+        }
+    }
+
+    /**
+     * Little-endian output to a channel through a fixed-size buffer.
+     */
+    private static class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+
+        private Output(WritableByteChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Makes room for the given number of bytes in the buffer, and returns it to put them.
+         */
+        private ByteBuffer reserve(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            return buffer;
+        }
+
+        private void putInts(int[] values, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                reserve(4).putInt(values[i]);
+            }
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            var offset = 0;
+            while (offset < bytes.length) {
+                var length = Math.min(bytes.length - offset, reserve(1).remaining());
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a ledger file into raw transactions (groups of lines separated by blank lines).
+ * The input is either read incrementally from a channel through a fixed-size buffer, or
+ * taken from an already filled buffer (e.g., a memory-mapped region of the file), so only
+ * the text of the current transaction is kept in memory.
+ */
+
+class TransactionScanner implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long NEW_LINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] text;
+    private int length;
+    private int textLength;
+    private boolean endedByBlankLine;
+    // number of bytes of the input consumed so far, and where the current transaction starts
+    private long position;
+    private long start;
+
+    TransactionScanner(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        this.text = new byte[256];
+    }
+
+    TransactionScanner(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer;
+        this.text = new byte[256];
+    }
+
+    /**
+     * Advances to the next transaction.
+     * Returns false when there are no more transactions in the input.
+     */
+    boolean next() throws IOException {
+        length = 0;
+        var lineStart = 0;
+        var blankLine = true;
+        while (buffer.hasRemaining() || fill()) {
+            var b = buffer.get();
+            position++;
+            append(b);
+            if (b == '\n') {
+                if (!blankLine) {
+                    lineStart = length;
+                    blankLine = true;
+                    continue;
+                }
+                // a blank line ends the current transaction (or is skipped if there is none yet)
+                length = lineStart;
+                if (length > 0) {
+                    textLength = (text[length - 1] == '\n') ? length - 1 : length;
+                    endedByBlankLine = true;
+                    return true;
+                }
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                blankLine = false;
+            }
+        }
+        // end of input: drop a trailing blank line, if any
+        if (blankLine) {
+            length = lineStart;
+        }
+        textLength = (length > 0 && text[length - 1] == '\n') ? length - 1 : length;
+        endedByBlankLine = false;
+        return length > 0;
+    }
+
+    /**
+     * Advances to the next transaction like {@link #next()}, but only keeps its first line (see
+     * {@link #header()}): the rest is skipped without copying it, so {@link #text()} returns the
+     * header alone. Only for input taken from a buffer, e.g., to index a memory-mapped file.
+     */
+    boolean nextHeader() {
+        var first = buffer.position();
+        var limit = buffer.limit();
+        // blank lines before the transaction are skipped
+        var lineStart = first;
+        var lineEnd = findLineEnd(lineStart, limit);
+        while (isBlank(lineStart, lineEnd)) {
+            if (lineEnd == limit) {
+                consume(first, limit);
+                length = 0;
+                textLength = 0;
+                return false;
+            }
+            lineStart = lineEnd + 1;
+            lineEnd = findLineEnd(lineStart, limit);
+        }
+        var textStart = lineStart;
+        start = position + (textStart - first);
+        // comments before the header are kept with it, as the header is the first line that is not one
+        while (isComment(lineStart, lineEnd) && lineEnd < limit) {
+            var next = findLineEnd(lineEnd + 1, limit);
+            if (isBlank(lineEnd + 1, next)) {
+                break;
+            }
+            lineStart = lineEnd + 1;
+            lineEnd = next;
+        }
+        length = lineEnd - textStart;
+        if (length > text.length) {
+            text = new byte[Math.max(length, text.length * 2)];
+        }
+        buffer.get(textStart, text, 0, length);
+        // the following lines up to a blank one (or the end of the input)
+        var textEnd = lineEnd;
+        while (lineEnd < limit) {
+            var next = lineEnd + 1;
+            lineEnd = findLineEnd(next, limit);
+            if (isBlank(next, lineEnd)) {
+                break;
+            }
+            textEnd = lineEnd;
+        }
+        textLength = textEnd - textStart;
+        consume(first, Math.min(lineEnd + 1, limit));
+        return true;
+    }
+
+    /**
+     * Returns the text of the current transaction, without the trailing new line.
+     */
+    String text() {
+        var end = (length > 0 && text[length - 1] == '\n') ? length - 1 : length;
+        return new String(text, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns true if the last line of the current transaction is whole (ends with a new line),
+     * false if the input ended in the middle of it.
+     */
+    boolean endsWithNewLine() {
+        return length > 0 && text[length - 1] == '\n';
+    }
+
+    /**
+     * Returns true if the current transaction was ended by a blank line after {@link #next()},
+     * false if it was ended by the end of the input (so more lines may still be appended to it).
+     */
+    boolean endedByBlankLine() {
+        return endedByBlankLine;
+    }
+
+    /**
+     * Returns the position in the input of the first byte of the current transaction.
+     */
+    long start() {
+        return start;
+    }
+
+    /**
+     * Returns the length in bytes of the text of the current transaction (see {@link #text()}).
+     */
+    int textLength() {
+        return textLength;
+    }
+
+    /**
+     * Returns the first lines of the current transaction up to its header (the first line that is
+     * not a comment), without decoding the rest.
+     */
+    String header() {
+        var end = 0;
+        var comment = true;
+        while (end < length && comment) {
+            var first = end;
+            while (first < length && (text[first] == ' ' || text[first] == '\t')) {
+                first++;
+            }
+            comment = first < length && text[first] == ';';
+            while (end < length && text[end] != '\n') {
+                end++;
+            }
+            if (comment && end < length) {
+                end++;
+            }
+        }
+        return new String(text, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes of the input consumed up to the end of the current transaction,
+     * including the blank line that ended it, if any.
+     */
+    long position() {
+        return position;
+    }
+
+    private boolean fill() throws IOException {
+        if (channel == null) {
+            return false;
+        }
+        buffer.clear();
+        var read = channel.read(buffer);
+        buffer.flip();
+        return read > 0;
+    }
+
+    private int findLineEnd(int i, int limit) {
+        // eight bytes at a time: a byte of the word is a new line if it becomes zero when xor-ed with new lines
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            var word = buffer.getLong(i) ^ NEW_LINES;
+            var zeros = ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+            if (zeros != 0) {
+                var bits = (buffer.order() == ByteOrder.BIG_ENDIAN)
+                        ? Long.numberOfLeadingZeros(zeros)
+                        : Long.numberOfTrailingZeros(zeros);
+                return i + bits / Byte.SIZE;
+            }
+        }
+        while (i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            var b = buffer.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isComment(int start, int end) {
+        for (int i = start; i < end; i++) {
+            var b = buffer.get(i);
+            if (b != ' ' && b != '\t') {
+                return b == ';';
+            }
+        }
+        return false;
+    }
+
+    private void consume(int first, int end) {
+        buffer.position(end);
+        position += end - first;
+    }
+
+    private void append(byte b) {
+        // blank lines before a transaction are dropped, so it starts at the first byte kept
+        if (length == 0) {
+            start = position - 1;
+        }
+        if (length == text.length) {
+            text = Arrays.copyOf(text, length * 2);
+        }
+        text[length++] = b;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
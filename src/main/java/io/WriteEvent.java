@@ -0,0 +1,55 @@
+package io;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JDK Flight Recorder event of a journal (or the new transactions of it) written by a {@link LedgerWriter}
+ * that took longer than its threshold, 1 ms unless the recording sets another one
+ * (e.g., {@code ledger.Write#threshold=0 ms}).
+ */
+
+@Name("ledger.Write")
+@Label("Journal Write")
+@Category("Ledger")
+@Description("Transactions of a journal written to a file or an output")
+@Threshold("1 ms")
+class WriteEvent extends Event {
+    @Label("File")
+    @Description("File written, or empty for other outputs")
+    String file;
+
+    @Label("Transactions")
+    long transactions;
+
+    @Label("Output Size")
+    @Description("Characters written")
+    long outputSize;
+
+    @Label("Synced")
+    boolean synced;
+
+    static WriteEvent start() {
+        var event = new WriteEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold.
+     */
+    void end(Object file, long transactions, long outputSize, boolean synced) {
+        end();
+        if (shouldCommit()) {
+            this.file = (file != null) ? file.toString() : null;
+            this.transactions = transactions;
+            this.outputSize = outputSize;
+            this.synced = synced;
+            commit();
+        }
+    }
+}
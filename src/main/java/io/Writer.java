@@ -8,4 +8,5 @@ import java.nio.file.Path;
 public interface Writer {
     void writeJournal(Journal journal);
     void writeJournal(Journal journal, Path path) throws IOException;
+    void writeJournal(Journal journal, Appendable output) throws IOException;
 }
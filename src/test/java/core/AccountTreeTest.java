@@ -0,0 +1,33 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountTreeTest {
+
+    @Test
+    void post() {
+        var tree = new AccountTree();
+        var currency = CurrencyUnit.EUR;
+        tree.post(new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 20)));
+        tree.post(new Entry(new Account("Expenses:Restaurant:Tips"), Money.of(currency, 2)));
+        tree.post(new Entry(new Account("Expenses:Restaurants"), Money.of(currency, 5)));
+        tree.post(new Entry(new Account("Assets:Cash"), Money.of(currency, -27)));
+
+        assertEquals(Money.of(currency, 22), tree.getNode("Expenses:Restaurant").getBalance());
+        assertEquals(Money.of(currency, 27), tree.getNode("Expenses").getBalance());
+        assertEquals(Money.of(currency, 0), tree.getBalance());
+        assertNull(tree.getNode("Restaurant"));
+
+        // nodes are sorted by name
+        var roots = tree.getRoots().stream().map(AccountTree.Node::getName).toList();
+        assertEquals(List.of("Assets", "Expenses"), roots);
+        var children = tree.getNode("Expenses").getChildren().stream().map(AccountTree.Node::getFullName).toList();
+        assertEquals(List.of("Expenses:Restaurant", "Expenses:Restaurants"), children);
+    }
+}
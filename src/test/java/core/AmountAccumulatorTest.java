@@ -0,0 +1,57 @@
+package core;
+
+import org.joda.money.CurrencyMismatchException;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountAccumulatorTest {
+
+    @Test
+    void add() {
+        var accumulator = new AmountAccumulator();
+        assertTrue(accumulator.isEmpty());
+        assertNull(accumulator.getTotal());
+        assertEquals(Money.zero(CurrencyUnit.EUR), accumulator.getTotal(CurrencyUnit.EUR));
+
+        accumulator.add(Money.of(CurrencyUnit.EUR, 500));
+        accumulator.add(Money.of(CurrencyUnit.EUR, -35.95));
+        accumulator.add(CurrencyUnit.EUR, 1);
+        accumulator.subtract(CurrencyUnit.EUR, 2);
+        assertEquals(Money.of(CurrencyUnit.EUR, 464.04), accumulator.getTotal());
+
+        // several currencies
+        accumulator.add(Money.of(CurrencyUnit.USD, 10));
+        assertEquals(Money.of(CurrencyUnit.USD, 10), accumulator.getTotal(CurrencyUnit.USD));
+        assertEquals(List.of(Money.of(CurrencyUnit.EUR, 464.04), Money.of(CurrencyUnit.USD, 10)), accumulator.getTotals());
+        assertThrows(CurrencyMismatchException.class, accumulator::getTotal);
+
+        // combining accumulators
+        var other = new AmountAccumulator();
+        other.add(Money.of(CurrencyUnit.USD, 5));
+        accumulator.add(other);
+        assertEquals(Money.of(CurrencyUnit.USD, 15), accumulator.getTotal(CurrencyUnit.USD));
+    }
+
+    @Test
+    void overflow() {
+        var accumulator = new AmountAccumulator();
+        accumulator.add(CurrencyUnit.EUR, Long.MAX_VALUE);
+        accumulator.add(CurrencyUnit.EUR, Long.MAX_VALUE);
+        accumulator.add(CurrencyUnit.EUR, 2);
+        var expected = BigDecimal.valueOf(Long.MAX_VALUE).multiply(BigDecimal.valueOf(2)).add(BigDecimal.valueOf(2));
+        assertEquals(Money.of(CurrencyUnit.EUR, expected.movePointLeft(2)), accumulator.getTotal());
+
+        // amounts that do not fit in a long
+        accumulator = new AmountAccumulator();
+        var large = Money.of(CurrencyUnit.EUR, new BigDecimal("123456789012345678901234.50"));
+        accumulator.add(large);
+        accumulator.add(Money.of(CurrencyUnit.EUR, 1));
+        assertEquals(large.plus(1), accumulator.getTotal());
+    }
+}
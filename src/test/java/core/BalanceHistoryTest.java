@@ -0,0 +1,58 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BalanceHistoryTest {
+
+    @Test
+    void getBalance() {
+        var currency = CurrencyUnit.EUR;
+        var history = new BalanceHistory(new Account("Assets:Cash"));
+        history.add(10, Money.of(currency, 500));
+        history.add(12, Money.of(currency, -12));
+        // out of date order
+        history.add(11, Money.of(currency, -35.95));
+        history.add(12, Money.of(currency, 2));
+
+        assertEquals(Money.of(currency, 454.05), history.getBalance());
+
+        // at the end of a day
+        assertNull(history.getBalance(9));
+        assertEquals(Money.of(currency, 500), history.getBalance(10));
+        assertEquals(Money.of(currency, 464.05), history.getBalance(11));
+        assertEquals(Money.of(currency, 454.05), history.getBalance(100));
+
+        // between days
+        assertEquals(Money.of(currency, -35.95), history.getBalance(11, 11));
+        assertEquals(Money.of(currency, -45.95), history.getBalance(11, 12));
+        assertEquals(Money.of(currency, 454.05), history.getBalance(0, 100));
+        assertNull(history.getBalance(13, 20));
+        assertNull(history.getBalance(12, 11));
+
+        // entries added after sorting
+        history.add(13, Money.of(currency, 1));
+        assertEquals(Money.of(currency, 1), history.getBalance(13, 20));
+    }
+
+    @Test
+    void getLargeBalance() {
+        var currency = CurrencyUnit.EUR;
+        var history = new BalanceHistory(new Account("Assets:Cash"));
+        var large = Money.of(currency, new BigDecimal("90000000000000000.00"));
+        history.add(10, large);
+        history.add(11, Money.of(currency, 1));
+        // the sum no longer fits in a long of cents
+        history.add(12, large);
+
+        assertEquals(large.plus(large).plus(1), history.getBalance());
+        assertEquals(large.plus(1), history.getBalance(11));
+        assertEquals(large.plus(1), history.getBalance(11, 12));
+    }
+}
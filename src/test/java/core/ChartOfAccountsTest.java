@@ -2,8 +2,7 @@ package core;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class ChartOfAccountsTest {
 
@@ -34,4 +33,23 @@ class ChartOfAccountsTest {
         var result2 = chartOfAccounts.contains(newAccount);
         assertFalse(result2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void addAccountByName() {
+        var chartOfAccounts = new ChartOfAccounts();
+        var assets = chartOfAccounts.addAccount("Assets");
+        var cash = chartOfAccounts.addAccount("Assets:Cash");
+
+        // the same (canonical) instance is returned for an existing account
+        assertSame(assets, chartOfAccounts.addAccount("Assets"));
+        assertSame(cash, chartOfAccounts.getAccount("Assets:Cash"));
+        assertNull(chartOfAccounts.getAccount("Liabilities"));
+        assertEquals(2, chartOfAccounts.size());
+
+        // ids are dense, in the order the accounts are added
+        assertEquals(0, assets.getId());
+        assertEquals(1, cash.getId());
+        assertSame(cash, chartOfAccounts.getAccount(1));
+        assertEquals(-1, new Account("Assets").getId());
+    }
+}
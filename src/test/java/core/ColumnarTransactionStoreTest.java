@@ -0,0 +1,103 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTransactionStoreTest {
+
+    private List<Transaction> transactions;
+
+    @BeforeEach
+    void setUp() {
+        transactions = new ArrayList<>();
+        var euro = CurrencyUnit.EUR;
+        var yuan = CurrencyUnit.of("CNY");
+
+        var entries1 = new ArrayList<Entry>();
+        entries1.add(new Entry(new Account("Assets:Cash"), Money.of(euro, 500)));
+        entries1.add(new Entry(new Account("Equity:Opening Balances"), Money.of(euro, -500)));
+        transactions.add(new Transaction(LocalDate.of(2023, 3, 6), TransactionStatus.CLEARED, new Payee("Opening Balance"), entries1));
+
+        var entries2 = new ArrayList<Entry>();
+        entries2.add(new Entry(new Account("Expenses:Groceries"), Money.of(yuan, 35.95)));
+        entries2.add(new Entry(new Account("Assets:Cash"), Money.of(yuan, -35.95)));
+        transactions.add(new Transaction(LocalDate.of(2023, 3, 7), null, new Payee("Mike's convenience store"), entries2));
+
+        // an amount that does not fit in a long, and a missing amount
+        var entries3 = new ArrayList<Entry>();
+        entries3.add(new Entry(new Account("Assets:Cash"), Money.of(euro, new BigDecimal("123456789012345678901234.50"))));
+        entries3.add(new Entry(new Account("Assets:Unknown"), null));
+        transactions.add(new Transaction(LocalDate.of(1969, 12, 31), TransactionStatus.PENDING, new Payee("Opening Balance"), entries3));
+    }
+
+    @Test
+    void get() {
+        var store = new ColumnarTransactionStore();
+        transactions.forEach(store::add);
+
+        assertEquals(3, store.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            var transaction = transactions.get(i);
+            assertEquals(transaction, store.get(i));
+            assertEquals(transaction.date(), store.getDate(i));
+            assertEquals(transaction.status(), store.getStatus(i));
+            assertEquals(transaction.payee(), store.getPayee(i));
+            assertEquals(transaction.entries().size(), store.getEntryCount(i));
+            for (int j = 0; j < transaction.entries().size(); j++) {
+                assertEquals(transaction.entries().get(j), store.getEntry(i, j));
+            }
+        }
+        // payees are shared
+        assertSame(store.getPayee(0), store.getPayee(2));
+    }
+
+    @Test
+    void largeAndMissingAmounts() {
+        var store = new ColumnarTransactionStore();
+        transactions.forEach(store::add);
+        var smallest = Money.ofMinor(CurrencyUnit.EUR, Long.MIN_VALUE);
+        var large = Money.of(CurrencyUnit.EUR, new BigDecimal("-98765432109876543210"));
+        var entries = new ArrayList<Entry>();
+        entries.add(new Entry(new Account("Assets:Cash"), smallest));
+        entries.add(new Entry(new Account("Assets:Unknown"), null));
+        entries.add(new Entry(new Account("Assets:Bank"), large));
+        store.add(new Transaction(LocalDate.of(2023, 3, 8), null, new Payee("Large"), entries));
+
+        assertEquals(smallest, store.getAmount(3, 0));
+        assertEquals(Long.MIN_VALUE, store.getAmountMinor(3, 0));
+        assertNull(store.getAmount(3, 1));
+        assertNull(store.getCurrency(3, 1));
+        assertEquals(large, store.getAmount(3, 2));
+        assertEquals(transactions.get(2).entries().get(0).amount(), store.getAmount(2, 0));
+        assertThrows(ArithmeticException.class, () -> store.getAmountMinor(3, 2));
+
+        var accumulator = new AmountAccumulator();
+        for (int i = 0; i < store.size(); i++) {
+            for (int j = 0; j < store.getEntryCount(i); j++) {
+                store.addAmount(i, j, accumulator);
+            }
+        }
+        var expected = transactions.get(2).entries().get(0).amount().plus(smallest).plus(large);
+        assertEquals(expected, accumulator.getTotal(CurrencyUnit.EUR));
+    }
+
+    @Test
+    void journal() {
+        var journal = new Journal(Locale.GERMANY, new ColumnarTransactionStore());
+        journal.addTransaction(transactions.get(0));
+
+        assertEquals(List.of(transactions.get(0)), journal.getTransactions());
+        assertEquals(Money.of(CurrencyUnit.EUR, 500), journal.getBalance("Cash"));
+        assertEquals(transactions.get(0).entries().subList(0, 1), journal.getEntriesBy(new Account("Assets:Cash")));
+    }
+}
@@ -0,0 +1,147 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class ConcurrentJournalTest {
+    private CurrencyUnit currency;
+
+    @BeforeEach
+    void setUp() {
+        currency = CurrencyUnit.of(Locale.getDefault());
+    }
+
+    private Transaction newTransaction(int i) {
+        var date = LocalDate.of(2023, 3, 6).plusDays(i % 30);
+        var amount = Money.ofMinor(currency, 100 + i);
+        return new Transaction(date, null, new Payee("Payee " + (i % 5)), List.of(
+                new Entry(new Account("Expenses:Account " + (i % 7)), amount),
+                new Entry(new Account("Assets:Cash"), amount.negated())));
+    }
+
+    @Test
+    void publish() {
+        var journal = new ConcurrentJournal();
+        journal.addTransaction(newTransaction(1));
+        assertEquals(List.of(), journal.read(Journal::getTransactions));
+
+        journal.publish();
+        try (var snapshot = journal.snapshot()) {
+            assertEquals(1, snapshot.getVersion());
+            assertEquals(List.of(newTransaction(1)), snapshot.getJournal().getTransactions());
+
+            // the snapshot does not change while it is open
+            journal.publish(List.of(newTransaction(2), newTransaction(3)));
+            assertEquals(1, snapshot.getJournal().getTransactions().size());
+            assertEquals(Money.ofMinor(currency, -101), snapshot.getJournal().getBalance("Assets:Cash"));
+            assertThrows(UnsupportedOperationException.class, () -> snapshot.getJournal().addTransaction(newTransaction(4)));
+        }
+
+        // both replicas end up with every transaction
+        journal.publish(List.of(newTransaction(4)));
+        journal.publish(List.of(newTransaction(5)));
+        try (var snapshot = journal.snapshot()) {
+            assertEquals(4, snapshot.getVersion());
+            assertEquals(List.of(newTransaction(1), newTransaction(2), newTransaction(3), newTransaction(4), newTransaction(5)),
+                    snapshot.getJournal().getTransactions());
+            assertEquals(Money.ofMinor(currency, -515), snapshot.getJournal().getBalance("Assets:Cash"));
+        }
+    }
+
+    @Test
+    void publishWithTimeout() throws InterruptedException {
+        var journal = new ConcurrentJournal();
+        journal.publish(List.of(newTransaction(1)));
+        var snapshot = journal.snapshot();
+        journal.addTransaction(newTransaction(2));
+        assertTrue(journal.publish(10, TimeUnit.MILLISECONDS));
+
+        // the snapshot of the first version is still open
+        journal.addTransaction(newTransaction(3));
+        assertFalse(journal.publish(10, TimeUnit.MILLISECONDS));
+        assertEquals(2, journal.read(Journal::getTransactions).size());
+
+        // once it is closed, the transactions kept are published
+        snapshot.close();
+        assertTrue(journal.publish(1, TimeUnit.SECONDS));
+        assertEquals(List.of(newTransaction(1), newTransaction(2), newTransaction(3)), journal.read(Journal::getTransactions));
+    }
+
+    @Test
+    void publishAfterLongSnapshot() throws InterruptedException {
+        var journal = new ConcurrentJournal();
+        journal.publish(List.of(newTransaction(1)));
+        journal.publish(List.of(newTransaction(2)));
+        var snapshot = journal.snapshot();
+        var closer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            snapshot.close();
+        });
+        closer.start();
+
+        // the writer waits until the snapshot is closed, spinning only at first
+        var start = System.nanoTime();
+        journal.publish(List.of(newTransaction(3)));
+        journal.publish(List.of(newTransaction(4)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        closer.join();
+        assertEquals(4, journal.read(Journal::getTransactions).size());
+    }
+
+    @Test
+    void readWhilePublishing() throws InterruptedException {
+        var journal = new ConcurrentJournal();
+        var batches = 200;
+        var batchSize = 10;
+        var failure = new AtomicReference<Throwable>();
+        var readers = new ArrayList<Thread>();
+        for (int r = 0; r < 3; r++) {
+            var reader = new Thread(() -> {
+                try {
+                    var version = 0L;
+                    while (version < batches) {
+                        try (var snapshot = journal.snapshot()) {
+                            var j = snapshot.getJournal();
+                            version = snapshot.getVersion();
+                            // every snapshot has whole batches, and its balances match its transactions
+                            assertEquals(version * batchSize, j.getTransactions().size());
+                            var expenses = j.query().withAccountPrefix("Expenses:").getBalance();
+                            assertEquals(j.getBalance("Assets:Cash").negated(), expenses);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (int b = 0; b < batches; b++) {
+            for (int i = 0; i < batchSize; i++) {
+                journal.addTransaction(newTransaction(b * batchSize + i));
+            }
+            journal.publish();
+        }
+        for (var reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+}
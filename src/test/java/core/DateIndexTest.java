@@ -0,0 +1,28 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class DateIndexTest {
+
+    @Test
+    void getPositions() {
+        var index = new DateIndex();
+        index.add(LocalDate.of(2023, 3, 6), 0);
+        index.add(LocalDate.of(2023, 3, 7), 1);
+        index.add(LocalDate.of(2023, 3, 7), 2);
+        index.add(LocalDate.of(2023, 4, 1), 3);
+
+        assertArrayEquals(new int[] {1, 2}, index.getPositions(LocalDate.of(2023, 3, 7), LocalDate.of(2023, 3, 7)));
+        assertArrayEquals(new int[] {0, 1, 2}, index.getPositions(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31)));
+        assertArrayEquals(new int[] {}, index.getPositions(LocalDate.of(2023, 5, 1), LocalDate.of(2023, 5, 31)));
+        assertArrayEquals(new int[] {}, index.getPositions(LocalDate.of(2023, 3, 31), LocalDate.of(2023, 3, 1)));
+
+        // transactions not added in date order are still returned in the order they were added
+        index.add(LocalDate.of(2023, 3, 6), 4);
+        assertArrayEquals(new int[] {0, 1, 2, 4}, index.getPositions(LocalDate.of(2023, 3, 1), LocalDate.of(2023, 3, 31)));
+    }
+}
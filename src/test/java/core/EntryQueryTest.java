@@ -0,0 +1,118 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class EntryQueryTest {
+
+    private Journal journal;
+    private CurrencyUnit currency;
+
+    @BeforeEach
+    void setUp() {
+        journal = new Journal();
+        currency = CurrencyUnit.of(Locale.getDefault());
+
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 6), TransactionStatus.CLEARED, new Payee("Opening Balance"), List.of(
+                new Entry(new Account("Assets:Cash"), Money.of(currency, 500)),
+                new Entry(new Account("Assets:Debit Card"), Money.of(currency, 500)),
+                new Entry(new Account("Equity:Opening Balances"), Money.of(currency, -1000)))));
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 7), TransactionStatus.PENDING, new Payee("Moe's restaurant"), List.of(
+                new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 20)),
+                new Entry(new Account("Expenses:Restaurant:Tips"), Money.of(currency, 2)),
+                new Entry(new Account("Assets:Cash"), Money.of(currency, -12)),
+                new Entry(new Account("Assets:Debit Card"), Money.of(currency, -10)))));
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 8), null, new Payee("Mike's convenience store"), List.of(
+                new Entry(new Account("Expenses:Groceries"), Money.of(currency, 35.95)),
+                new Entry(new Account("Assets:Cash"), Money.of(currency, -35.95)))));
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 9), null, new Payee("Moe's restaurant"), List.of(
+                new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 15)),
+                new Entry(new Account("Assets:Cash"), Money.of(currency, -15)))));
+    }
+
+    @Test
+    void getEntries() {
+        // account prefix and date range
+        var entries = journal.query()
+                .withAccountPrefix("Expenses:")
+                .between(LocalDate.of(2023, 3, 7), LocalDate.of(2023, 3, 8))
+                .getEntries();
+        assertEquals(List.of(
+                new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 20)),
+                new Entry(new Account("Expenses:Restaurant:Tips"), Money.of(currency, 2)),
+                new Entry(new Account("Expenses:Groceries"), Money.of(currency, 35.95))), entries);
+
+        // several payees and amount range
+        entries = journal.query()
+                .withPayee(new Payee("Moe's restaurant"))
+                .withPayee(new Payee("Mike's convenience store"))
+                .withAmountBetween(Money.of(currency, 10), Money.of(currency, 50))
+                .getEntries();
+        assertEquals(List.of(
+                new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 20)),
+                new Entry(new Account("Expenses:Groceries"), Money.of(currency, 35.95)),
+                new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 15))), entries);
+
+        // currency
+        assertEquals(11, journal.query().withCurrency(currency).getEntries().size());
+        assertTrue(journal.query().withCurrency(CurrencyUnit.USD).getEntries().isEmpty());
+
+        // status
+        entries = journal.query().withStatus(TransactionStatus.CLEARED).withStatus(TransactionStatus.PENDING).getEntries();
+        assertEquals(7, entries.size());
+        entries = journal.query().withStatus(null).withAccount(new Account("Assets:Cash")).getEntries();
+        assertEquals(List.of(
+                new Entry(new Account("Assets:Cash"), Money.of(currency, -35.95)),
+                new Entry(new Account("Assets:Cash"), Money.of(currency, -15))), entries);
+
+        // no matches
+        assertTrue(journal.query().withPayee(new Payee("Unknown")).getEntries().isEmpty());
+        assertTrue(journal.query().withAccount(new Account("Assets")).getEntries().isEmpty());
+    }
+
+    @Test
+    void getTransactions() {
+        var transactions = journal.query().withAccountContaining("Restaurant").getTransactions();
+        assertEquals(2, transactions.size());
+        assertEquals(LocalDate.of(2023, 3, 7), transactions.get(0).date());
+        assertEquals(LocalDate.of(2023, 3, 9), transactions.get(1).date());
+    }
+
+    @Test
+    void aggregate() {
+        assertEquals(4, journal.query().withAccountPrefix("Assets:Cash").count());
+        assertEquals(Money.of(currency, 437.05), journal.query().withAccountPrefix("Assets:Cash").getBalance());
+        assertEquals(Money.zero(CurrencyUnit.USD), journal.query().withAccountPrefix("Assets:Cash").getBalance(CurrencyUnit.USD));
+        assertEquals(Money.zero(currency), journal.query().withPayee(new Payee("Unknown")).getBalance());
+    }
+
+    @Test
+    void inParallel() {
+        var pool = new ForkJoinPool(4);
+        try {
+            // a threshold of 0 splits even this small journal into chunks
+            var query = journal.query().withAccountContaining("Cash").inParallel(pool, 0);
+            assertEquals(journal.query().withAccountContaining("Cash").getEntries(), query.getEntries());
+            assertEquals(4, query.count());
+            assertEquals(Money.of(currency, 437.05), query.getBalance());
+            assertEquals(4, journal.query().inParallel(pool, 0).getTransactions().size());
+
+            // the journal methods use the pool of the journal
+            journal.setQueryPool(pool, 0);
+            assertEquals(2, journal.getEntriesBy(new Account("Debit Card")).size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
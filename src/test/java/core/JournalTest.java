@@ -6,6 +6,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junitpioneer.jupiter.DefaultLocale;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -61,6 +63,22 @@ class JournalTest {
         assertEquals(expected2, balance2);
     }
 
+    @Test
+    void getBalanceAfterAddingTransactions() {
+        assertEquals(Money.of(currency, 452.05), journal.getBalance("Cash"));
+
+        var date = LocalDate.parse("2023/03/08", DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        var entries = new ArrayList<Entry>();
+        entries.add(new Entry(new Account("Assets:Petty Cash"), Money.of(currency, 50)));
+        entries.add(new Entry(new Account("Assets:Cash"), Money.of(currency, -50)));
+        journal.addTransaction(new Transaction(date, null, new Payee("Transfer"), entries));
+
+        // balances include the new transaction, and the new account
+        assertEquals(Money.of(currency, 452.05), journal.getBalance("Cash"));
+        assertEquals(Money.of(currency, 402.05), journal.getBalance("Assets:Cash"));
+        assertEquals(Money.of(currency, 50), journal.getBalance("Petty"));
+    }
+
     @Test
     void getBalanceBetweenDates() {
         // dates before any date in the journal
@@ -79,6 +97,147 @@ class JournalTest {
         assertEquals(expected3, balance3);
     }
 
+    @Test
+    void getBalancesAsOf() {
+        // before any date in the journal
+        var balances1 = journal.getBalancesAsOf("2023/03/01");
+        assertEquals(6, balances1.size());
+        assertTrue(balances1.values().stream().allMatch(Money::isZero));
+
+        // after the first transaction only
+        var balances2 = journal.getBalancesAsOf("2023/03/06");
+        assertEquals(Money.of(currency, 500), balances2.get(new Account("Assets:Cash")));
+        assertEquals(Money.of(currency, -1000), balances2.get(new Account("Equity:Opening Balances")));
+        assertEquals(Money.of(currency, 0), balances2.get(new Account("Expenses:Groceries")));
+
+        // after all the transactions
+        var balances3 = journal.getBalancesAsOf("2023/03/31");
+        assertEquals(Money.of(currency, 452.05), balances3.get(new Account("Assets:Cash")));
+        assertEquals(Money.of(currency, 35.95), balances3.get(new Account("Expenses:Groceries")));
+    }
+
+    @Test
+    void getSubtreeBalance() {
+        var balance1 = journal.getSubtreeBalance("Expenses:Restaurant");
+        var expected1 = Money.of(currency, 22);
+        assertEquals(expected1, balance1);
+
+        var balance2 = journal.getSubtreeBalance(new Account("Assets"));
+        var expected2 = Money.of(currency, 942.05);
+        assertEquals(expected2, balance2);
+
+        // only full account names (or their parents) match
+        var balance3 = journal.getSubtreeBalance("Cash");
+        var expected3 = Money.of(currency, 0);
+        assertEquals(expected3, balance3);
+    }
+
+    @Test
+    void getBalanceTreeReport() {
+        var expected = """
+                            942,05 €  Assets
+                            452,05 €    Cash
+                            490,00 €    Debit Card
+                         -1.000,00 €  Equity
+                         -1.000,00 €    Opening Balances
+                             57,95 €  Expenses
+                             35,95 €    Groceries
+                             22,00 €    Restaurant
+                             20,00 €      Food
+                              2,00 €      Tips
+                --------------------
+                              0,00 €
+                """;
+        assertEquals(expected, journal.getBalanceTreeReport());
+    }
+
+    @Test
+    void writeReports() throws IOException {
+        var output = new StringWriter();
+        journal.writeBalanceReport("Cash", output);
+        var expected = """
+                  500,00 €  Assets:Cash
+                  -12,00 €  Assets:Cash
+                  -35,95 €  Assets:Cash
+                -----------------------------------------------------
+                  452,05 €
+                """;
+        assertEquals(expected, output.toString());
+        assertEquals(expected, journal.getBalanceReport("Cash"));
+
+        // transactions in the order of the journal
+        output = new StringWriter();
+        journal.writeTransactionReport(List.of(new Account("Assets:Debit Card"), new Account("Expenses:Groceries")), output);
+        expected = """
+                2023/03/06 Opening Balance
+                    Assets:Cash                                         500,00 €            500,00 €
+                    Assets:Debit Card                                   500,00 €          1.000,00 €
+                    Equity:Opening Balances                          -1.000,00 €              0,00 €
+                2023/03/07 Moe's restaurant
+                    Expenses:Restaurant:Food                             20,00 €             20,00 €
+                    Expenses:Restaurant:Tips                              2,00 €             22,00 €
+                    Assets:Cash                                         -12,00 €             10,00 €
+                    Assets:Debit Card                                   -10,00 €              0,00 €
+                2023/03/07 Mike's convenience store
+                    Expenses:Groceries                                   35,95 €             35,95 €
+                    Assets:Cash                                         -35,95 €              0,00 €
+                """;
+        assertEquals(expected, output.toString());
+    }
+
+    @Test
+    void mixedCurrencies() {
+        var date = LocalDate.parse("2023/03/08", DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        var entries = new ArrayList<Entry>();
+        entries.add(new Entry(new Account("Assets:Cash"), Money.of(CurrencyUnit.USD, 100)));
+        entries.add(new Entry(new Account("Assets:Cash"), Money.of(currency, -90)));
+        entries.add(new Entry(new Account("Equity:Conversion"), Money.of(CurrencyUnit.USD, -100)));
+        entries.add(new Entry(new Account("Equity:Conversion"), Money.of(currency, 90)));
+        journal.addTransaction(new Transaction(date, null, new Payee("Exchange office"), entries));
+
+        assertEquals(Money.of(currency, 362.05), journal.getBalance("Assets:Cash"));
+        assertEquals(List.of(Money.of(currency, 362.05), Money.of(CurrencyUnit.USD, 100)),
+                journal.getBalances("Assets:Cash").getTotals());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), journal.getBalances("Cash", "2023/03/08", "2023/03/08").getTotal(CurrencyUnit.USD));
+        assertEquals(Money.of(currency, 362.05), journal.getSubtreeBalance("Assets:Cash"));
+        assertEquals(List.of(Money.of(currency, 362.05), Money.of(CurrencyUnit.USD, 100)),
+                journal.getAccountTree().getNode("Assets:Cash").getBalances());
+
+        var expected = """
+                  500,00 €  Assets:Cash
+                  -12,00 €  Assets:Cash
+                  -35,95 €  Assets:Cash
+                  100,00 US$  Assets:Cash
+                  -90,00 €  Assets:Cash
+                -----------------------------------------------------
+                  362,05 €
+                  100,00 US$
+                """;
+        assertEquals(expected, journal.getBalanceReport("Cash"));
+
+        expected = """
+                            852,05 €
+                          100,00 US$  Assets
+                            362,05 €
+                          100,00 US$    Cash
+                            490,00 €    Debit Card
+                           -910,00 €
+                         -100,00 US$  Equity
+                         -100,00 US$
+                             90,00 €    Conversion
+                         -1.000,00 €    Opening Balances
+                             57,95 €  Expenses
+                             35,95 €    Groceries
+                             22,00 €    Restaurant
+                             20,00 €      Food
+                              2,00 €      Tips
+                --------------------
+                              0,00 €
+                            0,00 US$
+                """;
+        assertEquals(expected, journal.getBalanceTreeReport());
+    }
+
     @Test
     void getEntriesBy1() {
         var payee = new Payee("Moe's restaurant");
@@ -0,0 +1,43 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentiles() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean());
+        assertEquals(1000, histogram.getValueAtPercentile(0), 1000 / 64);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        // values are within 2% of the exact percentile
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 10_000);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 20_000);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void buckets() {
+        // small values are exact, larger ones have buckets of 1/64 of their value
+        assertEquals(100, LatencyHistogram.getBucket(100));
+        assertEquals(100, LatencyHistogram.getHighestValue(100));
+        assertEquals(LatencyHistogram.getBucket(128), LatencyHistogram.getBucket(129));
+        assertNotEquals(LatencyHistogram.getBucket(129), LatencyHistogram.getBucket(130));
+        for (long value : new long[] {128, 1000, 123_456_789, Long.MAX_VALUE}) {
+            var highest = LatencyHistogram.getHighestValue(LatencyHistogram.getBucket(value));
+            assertTrue(highest >= value && highest - value <= value / 64, String.valueOf(value));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new LatencyHistogram().record(-1));
+    }
+}
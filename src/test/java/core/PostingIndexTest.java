@@ -0,0 +1,79 @@
+package core;
+
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostingIndexTest {
+    private TransactionStore store;
+    private PostingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        store = new ListTransactionStore();
+        index = new PostingIndex();
+        add(transaction("Opening Balance", "Assets:Cash", "Equity:Opening Balances"));
+        add(transaction("Moe's restaurant", "Expenses:Restaurant:Food", "Assets:Cash"));
+        add(transaction("Opening Balance", "Assets:Bank", "Equity:Opening Balances"));
+        add(transaction("Moe's restaurant", "Expenses:Restaurant:Tip", "Expenses:Restaurant:Food", "Assets:Cash"));
+    }
+
+    @Test
+    void getTransactions() {
+        assertArrayEquals(new int[] {0, 2}, index.getTransactions(new Payee("Opening Balance")));
+        assertArrayEquals(new int[] {}, index.getTransactions(new Payee("Unknown")));
+    }
+
+    @Test
+    void getPostings() {
+        assertArrayEquals(new int[] {0, 3, 8}, index.getPostings("Assets:Cash"::equals));
+        // accounts whose name contains the text
+        assertArrayEquals(new int[] {2, 6, 7}, index.getPostings(name -> name.contains("Restaurant")));
+        assertEquals(3, index.getTransaction(7));
+        assertEquals(1, index.getEntry(7));
+
+        // postings of some transactions
+        assertArrayEquals(new int[] {3, 8}, index.getPostings(index.getPostings("Assets:Cash"::equals), new int[] {1, 2, 3}));
+        assertArrayEquals(new int[] {6, 7}, index.getPostings(index.getPostings(name -> name.contains("Restaurant")), new int[] {3}));
+    }
+
+    @Test
+    void getPostingsOfAccounts() {
+        assertArrayEquals(new int[] {0, 3, 8}, index.getPostings("Assets:Cash"));
+        assertArrayEquals(new int[] {}, index.getPostings("Assets"));
+        // accounts whose name starts with the prefix
+        assertArrayEquals(new int[] {0, 3, 4, 8}, index.getPostingsByPrefix("Assets:"));
+        assertArrayEquals(new int[] {2, 6, 7}, index.getPostingsByPrefix("Expenses:Restaurant"));
+        assertArrayEquals(new int[] {}, index.getPostingsByPrefix("Assets:Cash:"));
+        assertArrayEquals(new int[] {}, index.getPostingsByPrefix("Liabilities"));
+    }
+
+    @Test
+    void intersectAndUnion() {
+        assertArrayEquals(new int[] {3, 7}, PostingIndex.intersect(new int[] {1, 3, 5, 7}, new int[] {3, 4, 7, 9, 11}));
+        assertArrayEquals(new int[] {}, PostingIndex.intersect(new int[] {1, 3}, new int[] {}));
+        assertArrayEquals(new int[] {1, 3, 4, 5}, PostingIndex.union(new int[] {1, 3, 5}, new int[] {3, 4}));
+    }
+
+    private void add(Transaction transaction) {
+        var position = store.size();
+        store.add(transaction);
+        index.addPayee(position, transaction.payee());
+        index.addPostings(position, store);
+    }
+
+    private static Transaction transaction(String payee, String... accounts) {
+        var entries = new ArrayList<Entry>();
+        for (var account : accounts) {
+            entries.add(new Entry(new Account(account), Money.parse("EUR 1")));
+        }
+        return new Transaction(LocalDate.of(2023, 3, 6), null, new Payee(payee), List.copyOf(entries));
+    }
+}
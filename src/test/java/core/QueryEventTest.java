@@ -0,0 +1,98 @@
+package core;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class QueryEventTest {
+    private Journal journal;
+
+    @BeforeEach
+    void setUp() {
+        var currency = CurrencyUnit.of(Locale.getDefault());
+        journal = new Journal();
+        for (int i = 0; i < 10; i++) {
+            var amount = Money.of(currency, 10 + i);
+            journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 1 + i), null, new Payee("Payee " + (i % 2)), List.of(
+                    new Entry(new Account("Expenses:Account " + (i % 3)), amount),
+                    new Entry(new Account("Assets:Cash"), amount.negated()))));
+        }
+    }
+
+    private static List<RecordedEvent> record(Path tempDir, String eventName, Runnable operations) throws IOException {
+        var file = tempDir.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            // every event, whatever it takes
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            operations.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
+    @Test
+    void queryEvents(@TempDir Path tempDir) throws IOException {
+        var events = record(tempDir, "ledger.Query", () -> {
+            journal.getBalance("Expenses", "2023/03/01", "2023/03/05");
+            journal.query().withPayee(new Payee("Payee 0")).withAccountPrefix("Expenses:").getEntries();
+        });
+        assertEquals(2, events.size());
+
+        var balance = events.get(0);
+        assertEquals("BALANCE", balance.getString("kind"));
+        assertEquals("getBalance", balance.getString("method"));
+        assertEquals("Expenses between 2023/03/01 and 2023/03/05", balance.getString("filter"));
+        assertEquals(3, balance.getLong("scanned"));
+
+        var entries = events.get(1);
+        assertEquals("ENTRY_FILTER", entries.getString("kind"));
+        assertEquals("payee Payee 0 and account starting with Expenses:", entries.getString("filter"));
+        assertEquals(5, entries.getLong("scanned"));
+        assertEquals(5, entries.getLong("results"));
+    }
+
+    @Test
+    void reportEvents(@TempDir Path tempDir) throws IOException {
+        var report = new String[1];
+        var events = record(tempDir, "ledger.Report", () -> report[0] = journal.getTransactionReport(new Payee("Payee 1")));
+        assertEquals(1, events.size());
+        assertEquals("getTransactionReport", events.get(0).getString("report"));
+        assertEquals("Payee 1", events.get(0).getString("filter"));
+        assertEquals(report[0].length(), events.get(0).getLong("outputSize"));
+    }
+
+    @Test
+    void threshold(@TempDir Path tempDir) throws IOException {
+        // with the default threshold, fast queries are not recorded
+        var file = tempDir.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            recording.enable("ledger.Query");
+            recording.start();
+            journal.getBalance("Assets:Cash");
+            recording.stop();
+            recording.dump(file);
+        }
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> event.getEventType().getName().equals("ledger.Query")));
+    }
+}
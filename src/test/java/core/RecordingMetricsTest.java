@@ -0,0 +1,90 @@
+package core;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class RecordingMetricsTest {
+    private Journal journal;
+    private RecordingMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        var currency = CurrencyUnit.of(Locale.getDefault());
+        journal = new Journal();
+        for (int i = 0; i < 10; i++) {
+            var amount = Money.of(currency, 10 + i);
+            journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 1 + i), null, new Payee("Payee " + (i % 2)), List.of(
+                    new Entry(new Account("Expenses:Account " + (i % 3)), amount),
+                    new Entry(new Account("Assets:Cash"), amount.negated()))));
+        }
+        metrics = new RecordingMetrics();
+        journal.setMetrics(metrics);
+    }
+
+    @Test
+    void queries() {
+        journal.getBalance("Assets:Cash");
+        journal.getBalances("Expenses", "2023/03/01", "2023/03/05");
+        journal.getSubtreeBalance("Expenses");
+        journal.getBalanceReport("Expenses:Account 0");
+        journal.getTransactionReport(new Payee("Payee 0"));
+        journal.getEntriesBy(new Account("Expenses:Account 1"));
+
+        assertEquals(3, metrics.getQueryLatencies(Metrics.Query.BALANCE).getCount());
+        assertEquals(2, metrics.getQueryLatencies(Metrics.Query.REPORT).getCount());
+        assertEquals(1, metrics.getQueryLatencies(Metrics.Query.ENTRY_FILTER).getCount());
+        assertTrue(metrics.getQueryLatencies(Metrics.Query.REPORT).getMax() > 0);
+    }
+
+    @Test
+    void scannedEntries() {
+        // every entry of the transactions of the payee is scanned, and only the expenses match
+        var entries = journal.query().withPayee(new Payee("Payee 0")).withAccountPrefix("Expenses:").getEntries();
+        assertEquals(5, entries.size());
+        assertEquals(5, metrics.getEntriesMatching());
+        assertEquals(5, metrics.getEntriesScanned());
+
+        // without an account condition, all the entries of the candidate transactions are scanned
+        journal.query().withPayee(new Payee("Payee 1")).withAmount(Money.of(CurrencyUnit.EUR, 11)).count();
+        assertEquals(15, metrics.getEntriesScanned());
+        assertEquals(6, metrics.getEntriesMatching());
+    }
+
+    @Test
+    void scrape() throws IOException {
+        journal.getBalance("Assets:Cash");
+        metrics.parsed(1000, 10, 20, metrics.startTime());
+        metrics.parseError();
+        metrics.synced();
+
+        var output = new StringBuilder();
+        metrics.scrape(output);
+        var text = output.toString();
+        assertTrue(text.contains("# TYPE ledger_read_bytes_total counter\nledger_read_bytes_total 1000\n"));
+        assertTrue(text.contains("ledger_parsed_entries_total 20\n"));
+        assertTrue(text.contains("ledger_parse_errors_total 1\n"));
+        assertTrue(text.contains("ledger_syncs_total 1\n"));
+        assertTrue(text.contains("ledger_query_seconds_count{kind=\"balance\"} 1\n"));
+        assertTrue(text.contains("ledger_query_seconds{kind=\"report\",quantile=\"0.99\"} 0.0\n"));
+    }
+
+    @Test
+    void noMetrics() {
+        // the default metrics do not measure time
+        assertEquals(0, Metrics.NONE.startTime());
+        journal.setMetrics(Metrics.NONE);
+        journal.getBalance("Assets:Cash");
+        assertEquals(0, metrics.getQueryLatencies(Metrics.Query.BALANCE).getCount());
+    }
+}
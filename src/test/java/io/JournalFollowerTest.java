@@ -0,0 +1,128 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DefaultLocale("es-ES")
+class JournalFollowerTest {
+    private static final String OPENING = """
+            2023/03/06 * Opening Balance
+                Assets:Cash                                         500,00 €
+                Equity:Opening Balances                            -500,00 €
+            """;
+    private static final String RESTAURANT = """
+            2023/03/07 Moe's restaurant
+                Expenses:Restaurant:Food                             20,00 €
+                Assets:Cash                                         -20,00 €
+            """;
+
+    @Test
+    void poll(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("followed.ledger");
+        Files.writeString(file, OPENING);
+        try (var follower = new LedgerReader().follow(file)) {
+            var journal = follower.getLedger().getJournal();
+            assertEquals(1, journal.getTransactions().size());
+            assertEquals("500,00 €", journal.getBalanceAsString("Assets:Cash"));
+            assertEquals(0, follower.poll());
+
+            // the last line of the transaction is not whole yet
+            var partial = RESTAURANT.substring(0, RESTAURANT.length() - 10);
+            Files.writeString(file, "\n" + partial, StandardOpenOption.APPEND);
+            assertEquals(0, follower.poll());
+            assertEquals(OPENING.getBytes(StandardCharsets.UTF_8).length, follower.getPosition());
+
+            // the last transaction is held back until a blank line follows it, or the file is at rest
+            Files.writeString(file, RESTAURANT.substring(partial.length()), StandardOpenOption.APPEND);
+            assertEquals(0, follower.poll());
+            assertEquals(0, follower.poll());
+            assertEquals(1, follower.poll(true));
+            assertEquals(Files.size(file), follower.getPosition());
+            assertEquals("480,00 €", journal.getBalanceAsString("Assets:Cash"));
+            assertEquals(3, follower.getLedger().getAccounts().size());
+        }
+    }
+
+    @Test
+    void pollHalfTransaction(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("followed.ledger");
+        Files.writeString(file, OPENING);
+        try (var follower = new LedgerReader().follow(file)) {
+            var journal = follower.getLedger().getJournal();
+            var start = follower.getPosition();
+
+            // whole lines, but the last posting is still missing
+            var half = RESTAURANT.substring(0, RESTAURANT.indexOf("    Assets:Cash"));
+            Files.writeString(file, "\n" + half, StandardOpenOption.APPEND);
+            assertEquals(0, follower.poll());
+            assertEquals(start, follower.getPosition());
+            assertEquals(1, journal.getTransactions().size());
+            assertEquals("500,00 €", journal.getBalanceAsString("Assets:Cash"));
+
+            // a blank line ends the transaction
+            Files.writeString(file, RESTAURANT.substring(half.length()) + "\n", StandardOpenOption.APPEND);
+            assertEquals(1, follower.poll());
+            assertEquals(Files.size(file), follower.getPosition());
+            assertEquals(2, journal.getTransactions().size());
+            assertEquals("480,00 €", journal.getBalanceAsString("Assets:Cash"));
+            assertEquals(0, follower.poll());
+        }
+    }
+
+    @Test
+    void skipInvalidTransactions(@TempDir Path tempDir) throws IOException {
+        // the file was taken to be at rest while its last transaction was half written
+        var file = tempDir.resolve("followed.ledger");
+        var half = RESTAURANT.substring(0, RESTAURANT.indexOf("    Assets:Cash"));
+        Files.writeString(file, OPENING + "\n" + half);
+        try (var follower = new LedgerReader().follow(file)) {
+            var journal = follower.getLedger().getJournal();
+            assertEquals(2, journal.getTransactions().size());
+
+            // the rest of it is not a transaction, but the transactions after it are still read
+            Files.writeString(file, RESTAURANT.substring(half.length()) + "\n" + OPENING + "\n", StandardOpenOption.APPEND);
+            assertEquals(1, follower.poll());
+            assertEquals(Files.size(file), follower.getPosition());
+            assertEquals(3, journal.getTransactions().size());
+            assertEquals(1, follower.getErrors().size());
+            assertTrue(follower.getErrors().get(0).getMessage().startsWith("Invalid transaction header"));
+        }
+    }
+
+    @Test
+    void awaitChanges(@TempDir Path tempDir) throws IOException, InterruptedException {
+        var file = tempDir.resolve("followed.ledger");
+        Files.writeString(file, OPENING);
+        try (var follower = new LedgerReader().follow(file)) {
+            assertEquals(0, follower.awaitChanges(10, TimeUnit.MILLISECONDS));
+
+            var writer = new Thread(() -> {
+                try {
+                    Thread.sleep(50);
+                    Files.writeString(file, "\n" + RESTAURANT + "\n", StandardOpenOption.APPEND);
+                } catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            var count = 0;
+            for (int i = 0; i < 100 && count == 0; i++) {
+                count = follower.awaitChanges(100, TimeUnit.MILLISECONDS);
+            }
+            writer.join();
+            assertEquals(1, count);
+            assertEquals("480,00 €", follower.getLedger().getJournal().getBalanceAsString("Assets:Cash"));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io;
+
+import core.Entry;
+import core.Transaction;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class JournalGeneratorTest {
+
+    private static String generate(JournalGenerator generator) throws IOException {
+        var text = new StringBuilder();
+        generator.generate(text);
+        return text.toString();
+    }
+
+    @Test
+    void sameSeed() throws IOException {
+        var journal = generate(new JournalGenerator(42).withTransactions(100));
+        assertEquals(journal, generate(new JournalGenerator(42).withTransactions(100)));
+        assertNotEquals(journal, generate(new JournalGenerator(43).withTransactions(100)));
+        assertTrue(journal.startsWith("2023/01/01"));
+        assertTrue(journal.contains(",") && journal.contains(" €\n"));
+    }
+
+    @Test
+    void readGeneratedJournal(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("generated.ledger");
+        var start = LocalDate.of(2020, 1, 1);
+        var end = LocalDate.of(2020, 12, 31);
+        new JournalGenerator(7)
+                .withTransactions(5000)
+                .withAccountTree(3, 4)
+                .withPayees(100, 1.2)
+                .between(start, end)
+                .withCurrencies(CurrencyUnit.EUR, CurrencyUnit.USD, CurrencyUnit.JPY)
+                .generate(file);
+
+        var ledger = new LedgerReader().readJournal(file);
+        var journal = ledger.getJournal();
+        var transactions = journal.getTransactions();
+        assertEquals(5000, transactions.size());
+        assertEquals(start, transactions.get(0).date());
+        assertEquals(end, transactions.get(transactions.size() - 1).date());
+
+        var currencies = new HashSet<CurrencyUnit>();
+        var payees = new HashMap<String, Integer>();
+        for (Transaction transaction : transactions) {
+            // every transaction is balanced, in a single currency
+            var currency = transaction.entries().get(0).amount().getCurrencyUnit();
+            var total = Money.zero(currency);
+            for (Entry entry : transaction.entries()) {
+                total = total.plus(entry.amount());
+            }
+            assertTrue(total.isZero());
+            currencies.add(currency);
+            payees.merge(transaction.payee().name(), 1, Integer::sum);
+        }
+        assertEquals(3, currencies.size());
+        assertEquals(CurrencyUnit.EUR, journal.getBalances("Expenses").getTotals().get(0).getCurrencyUnit());
+
+        // expense accounts are leaves of the tree, and payees follow a Zipf distribution
+        assertTrue(ledger.getAccounts().stream()
+                .map(account -> account.getName())
+                .filter(name -> name.startsWith("Expenses"))
+                .allMatch(name -> name.matches("Expenses:Account [0-3]:Account [0-3]\\.[0-3]:Account [0-3]\\.[0-3]\\.[0-3]")));
+        assertTrue(payees.get("Payee 0") > payees.get("Payee 1"));
+        assertTrue(payees.get("Payee 1") > payees.getOrDefault("Payee 50", 0));
+    }
+
+    @Test
+    void decimalSeparator(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("generated.ledger");
+        new JournalGenerator(1, Locale.US).withTransactions(10).generate(file);
+        var text = Files.readString(file);
+        assertTrue(text.contains(".") && text.contains(" $\n"));
+        assertFalse(text.contains(","));
+        var journal = new LedgerReader(Locale.US).readJournal(file).getJournal();
+        assertEquals(10, journal.getTransactions().size());
+    }
+
+    @Test
+    void invalidArguments() {
+        var generator = new JournalGenerator(1);
+        assertThrows(IllegalArgumentException.class, () -> generator.withTransactions(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.withAccountTree(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> generator.withPayees(0, 1.0));
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.between(LocalDate.of(2023, 2, 1), LocalDate.of(2023, 1, 1)));
+    }
+}
@@ -0,0 +1,143 @@
+package io;
+
+import core.*;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class LazyTransactionStoreTest {
+    private static final LocalDate START = LocalDate.of(2014, 1, 1);
+    private static final LocalDate END = LocalDate.of(2023, 12, 31);
+
+    private Path file;
+    private Journal expected;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws IOException {
+        file = tempDir.resolve("decade.ledger");
+        new JournalGenerator(3)
+                .withTransactions(3650)
+                .withCurrencies(CurrencyUnit.EUR, CurrencyUnit.USD)
+                .between(START, END)
+                .generate(file);
+        expected = new LedgerReader().readJournal(file).getJournal();
+    }
+
+    @Test
+    void sameResults() {
+        var journal = new LedgerReader().readJournalLazily(file).getJournal();
+        var month = journal.query().withAccountPrefix("Expenses:").between(LocalDate.of(2020, 5, 1), LocalDate.of(2020, 5, 31));
+        var expectedMonth = expected.query().withAccountPrefix("Expenses:").between(LocalDate.of(2020, 5, 1), LocalDate.of(2020, 5, 31));
+        assertEquals(expectedMonth.getEntries(), month.getEntries());
+        assertEquals(expectedMonth.getBalances().getTotals(), month.getBalances().getTotals());
+        assertEquals(expected.getBalance("Expenses", "2020/05/01", "2020/05/31"), journal.getBalance("Expenses", "2020/05/01", "2020/05/31"));
+        assertEquals(expected.getTransactionReport("2020/05/01", "2020/05/31"), journal.getTransactionReport("2020/05/01", "2020/05/31"));
+
+        // the balances of whole accounts index every entry
+        assertEquals(expected.getBalance("Assets:Cash"), journal.getBalance("Assets:Cash"));
+        assertEquals(expected.getBalanceReport("Assets:Bank", "2015/01/01", "2015/12/31"), journal.getBalanceReport("Assets:Bank", "2015/01/01", "2015/12/31"));
+        assertEquals(expected.getBalanceTreeReport(), journal.getBalanceTreeReport());
+        assertEquals(expected.getEntriesBy(new Account("Expenses:Account 1:Account 1.2")),
+                journal.getEntriesBy(new Account("Expenses:Account 1:Account 1.2")));
+        assertEquals(expected.getTransactions(), journal.getTransactions());
+    }
+
+    @Test
+    void parsesOnlyWhatQueriesNeed() {
+        var metrics = new RecordingMetrics();
+        var reader = new LedgerReader();
+        reader.setMetrics(metrics);
+        var journal = reader.readJournalLazily(file).getJournal();
+        // opening the journal only parses the headers
+        assertEquals(3650, metrics.getTransactionsParsed());
+        assertEquals(0, metrics.getEntriesParsed());
+
+        var start = LocalDate.of(2020, 5, 1);
+        var end = LocalDate.of(2020, 5, 31);
+        var inMonth = expected.query().between(start, end).getTransactions().size();
+        var balance = journal.query().withAccountPrefix("Expenses:").between(start, end).getBalance();
+        assertEquals(expected.query().withAccountPrefix("Expenses:").between(start, end).getBalance(), balance);
+        assertEquals(3650 + inMonth, metrics.getTransactionsParsed());
+
+        // the same month again comes from the cache
+        journal.query().withAccountPrefix("Expenses:").between(start, end).getBalance();
+        journal.query().withPayee(new Payee("Payee 0")).between(start, end).getEntries();
+        assertEquals(3650 + inMonth, metrics.getTransactionsParsed());
+    }
+
+    @Test
+    void withoutCache() {
+        var metrics = new RecordingMetrics();
+        var reader = new LedgerReader();
+        reader.setMetrics(metrics);
+        var journal = reader.readJournalLazily(file, 0).getJournal();
+        var start = LocalDate.of(2020, 5, 1);
+        var end = LocalDate.of(2020, 5, 31);
+        var inMonth = expected.query().between(start, end).getTransactions().size();
+        journal.query().between(start, end).getBalance();
+        journal.query().between(start, end).getBalance();
+        // each transaction is parsed once per query, not once per entry
+        assertEquals(3650 + 2 * inMonth, metrics.getTransactionsParsed());
+    }
+
+    @Test
+    void addTransactions() {
+        var journal = new LedgerReader().readJournalLazily(file).getJournal();
+        var currency = CurrencyUnit.of(Locale.getDefault());
+        var amount = Money.of(currency, 100);
+        journal.addTransaction(new Transaction(LocalDate.of(2024, 1, 1), null, new Payee("New payee"), List.of(
+                new Entry(new Account("Expenses:New"), amount), new Entry(new Account("Assets:Cash"), amount.negated()))));
+        assertEquals(3651, journal.getTransactions().size());
+        assertEquals(amount, journal.getBalance("Expenses:New", "2024/01/01", "2024/01/31"));
+        assertEquals(expected.getBalance("Assets:Cash").minus(amount), journal.getBalance("Assets:Cash"));
+    }
+
+    @Test
+    void blankLinesAndErrors(@TempDir Path tempDir) throws IOException {
+        var text = tempDir.resolve("blank.ledger");
+        Files.writeString(text, """
+
+
+                2023/03/06 * Opening Balance
+                    Assets:Cash                                         500,00 €
+                    Equity:Opening Balances                            -500,00 €
+                   \s
+                \t
+                2023/03/07 Moe's restaurant
+                    Expenses:Restaurant:Food                             20,00 FOO
+                    Assets:Cash                                         -20,00 €
+                """);
+        var journal = new LedgerReader().readJournalLazily(text).getJournal();
+        assertEquals(2, journal.getTransactions().size() );
+        assertEquals(Money.of(CurrencyUnit.EUR, 500), journal.getBalance("Assets:Cash", "2023/03/06", "2023/03/06"));
+        // invalid entries are only found when they are parsed
+        assertThrows(IllegalArgumentException.class, () -> journal.getBalance("Assets:Cash", "2023/03/07", "2023/03/07"));
+
+        Files.writeString(text, "2023/03/06 * Opening Balance\n    Assets:Cash    500,00 €\n\nInvalid header\n");
+        assertThrows(IllegalArgumentException.class, () -> new LedgerReader().readJournalLazily(text));
+    }
+
+    @Test
+    void sameTransactionsAsReader(@TempDir Path tempDir) throws IOException {
+        var text = tempDir.resolve("mixed.ledger");
+        Files.writeString(text, "; opening balances\r\n2023/03/06 * Opening Balance\r\n    Assets:Cash      500,00 €\r\n"
+                + "    ; comment\r\n    Equity:Opening Balances    -500,00 €\r\n\r\n \t\n\n"
+                + "2023/03/07 Café Ñandú\n    Expenses:Restaurant:Food    12,50 €\n    Assets:Cash    -12,50 €");
+        var transactions = new LedgerReader().readJournalLazily(text).getJournal().getTransactions();
+        assertEquals(new LedgerReader().readJournal(text).getJournal().getTransactions(), transactions);
+        assertEquals("Café Ñandú", transactions.get(1).payee().name());
+    }
+}
@@ -5,16 +5,25 @@ import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junitpioneer.jupiter.DefaultLocale;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @DefaultLocale("es-ES")
@@ -148,4 +157,145 @@ class LedgerReaderTest {
         amount = "foo bar baz";
         assertNull(reader.parseAmount(amount));
     }
-}
\ No newline at end of file
+
+    @Test
+    void parseAmountCurrency() {
+        assertEquals(Money.of(CurrencyUnit.USD, 2.95), reader.parseAmount("USD 2,95"));
+        assertEquals(Money.of(CurrencyUnit.USD, 2.95), reader.parseAmount("2,95 US$"));
+        assertEquals(Money.of(CurrencyUnit.of("CNY"), 2), reader.parseAmount("2 CNY"));
+        assertEquals(Money.of(currency, 2), reader.parseAmount("2 €"));
+        assertThrows(IllegalArgumentException.class, () -> reader.parseAmount("2 FOO"));
+        var exception = assertThrows(IllegalArgumentException.class, () -> reader.parseAmount("2,95 JPY"));
+        assertEquals("Invalid amount for JPY: 2,95 JPY", exception.getMessage());
+
+        // the currency of the locale takes precedence for its symbol
+        var chinaReader = new LedgerReader(Locale.CHINA);
+        assertEquals(Money.of(CurrencyUnit.of("CNY"), 2), chinaReader.parseAmount("¥ 2"));
+        // symbols shared by several currencies are the currency of the locale
+        assertEquals(Money.of(currency, 2.95), reader.parseAmount("$2,95"));
+        assertEquals(Money.of(currency, 2), reader.parseAmount("¥ 2"));
+        var usReader = new LedgerReader(Locale.US);
+        assertEquals(Money.of(CurrencyUnit.USD, 2.95), usReader.parseAmount("$2.95"));
+        assertEquals(Money.of(CurrencyUnit.USD, 2.95), usReader.parseAmount("¥ 2.95"));
+    }
+
+    @Test
+    void readYuanJournal() throws IOException {
+        var file = Path.of("src/main/resources/yuan.ledger");
+        var journal = new LedgerReader(Locale.CHINA).readJournal(file).getJournal();
+        assertEquals(Money.of(CurrencyUnit.of("CNY"), 452.05), journal.getBalance("Assets:Cash"));
+
+        // "¥" is not the currency of other locales, so the amounts are in their currency
+        journal = new LedgerReader(Locale.US).readJournal(file).getJournal();
+        assertEquals(Money.of(CurrencyUnit.USD, 452.05), journal.getBalance("Assets:Cash"));
+        // the point is a grouping separator in Spain
+        journal = new LedgerReader(new Locale("es", "ES")).readJournal(file).getJournal();
+        assertEquals(Money.of(CurrencyUnit.EUR, -3107), journal.getBalance("Assets:Cash"));
+    }
+
+    @Test
+    void readMixedCurrencies(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("mixed.ledger");
+        Files.writeString(file, """
+                2023/03/06 * Opening Balance
+                    Assets:Cash                                  500,00 €
+                    Assets:Cash                                US$ 200,00
+                    Assets:Bank                                1000,00 JPY
+                    Equity:Opening Balances                     -500,00 €
+                    Equity:Opening Balances                     -200 USD
+                    Equity:Opening Balances                    -1000 JPY
+                """);
+        var journal = reader.readJournal(file).getJournal();
+        assertEquals(List.of(Money.of(currency, 500), Money.of(CurrencyUnit.USD, 200)), journal.getBalances("Assets:Cash").getTotals());
+        assertEquals(Money.ofMajor(CurrencyUnit.JPY, 1000), journal.getBalances("Assets").getTotal(CurrencyUnit.JPY));
+
+        // written and read again with the same currencies
+        var written = tempDir.resolve("written.ledger");
+        new LedgerWriter().writeJournal(journal, written);
+        assertEquals(journal.getTransactions(), new LedgerReader().readJournal(written).getTransactions());
+    }
+
+    @Test
+    void streamTransactions(@TempDir Path tempDir) throws IOException {
+        // several blank lines between transactions, a whitespace-only line and no final new line
+        var content = """
+                
+                2023/03/06 * Opening Balance
+                    Assets:Cash                                  500
+                    Equity:Opening Balances                     -500
+                
+                \s\s
+                
+                2023/03/07 Mike's convenience store
+                    Expenses:Groceries                         35,95
+                    Assets:Cash                               -35,95""";
+        var file = tempDir.resolve("stream.ledger");
+        Files.writeString(file, content);
+
+        var date1 = LocalDate.parse("2023/03/06", DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        var entries1 = new ArrayList<Entry>();
+        entries1.add(new Entry(new Account("Assets:Cash"), Money.of(currency, 500)));
+        entries1.add(new Entry(new Account("Equity:Opening Balances"), Money.of(currency, -500)));
+        var expected1 = new Transaction(date1, TransactionStatus.CLEARED, new Payee("Opening Balance"), entries1);
+
+        var date2 = LocalDate.parse("2023/03/07", DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+        var entries2 = new ArrayList<Entry>();
+        entries2.add(new Entry(new Account("Expenses:Groceries"), Money.of(currency, 35.95)));
+        entries2.add(new Entry(new Account("Assets:Cash"), Money.of(currency, -35.95)));
+        var expected2 = new Transaction(date2, null, new Payee("Mike's convenience store"), entries2);
+
+        try (var transactions = reader.streamTransactions(file)) {
+            assertEquals(List.of(expected1, expected2), transactions.toList());
+        }
+    }
+
+    @Test
+    void readJournalInParallel(@TempDir Path tempDir) throws IOException {
+        var content = new StringBuilder();
+        for (int i = 1; i <= 200; i++) {
+            content.append(String.format("2023/03/%02d Payee %d%n", i % 28 + 1, i))
+                    .append(String.format("    Expenses:Account %d            %d,%02d%n", i % 7, i, i % 100))
+                    .append(String.format("    Assets:Cash                   -%d,%02d%n", i, i % 100))
+                    .append(i % 3 == 0 ? "\n\n" : "\n");
+        }
+        var file = tempDir.resolve("parallel.ledger");
+        Files.writeString(file, content);
+
+        List<Transaction> expected;
+        try (var transactions = new LedgerReader().streamTransactions(file)) {
+            expected = transactions.toList();
+        }
+
+        // small chunks, so that the file is split in many of them
+        var pool = new ForkJoinPool(4);
+        try (var channel = FileChannel.open(file)) {
+            var ledger = reader.readJournalInParallel(file, channel, pool, 100);
+            assertEquals(expected, ledger.getTransactions());
+            assertEquals(8, ledger.getAccounts().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void metrics(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("metrics.ledger");
+        new JournalGenerator(1).withTransactions(100).generate(file);
+        var metrics = new RecordingMetrics();
+        reader.setMetrics(metrics);
+        var journal = reader.readJournal(file).getJournal();
+
+        var entries = journal.getTransactions().stream().mapToInt(transaction -> transaction.entries().size()).sum();
+        assertEquals(Files.size(file), metrics.getBytesRead());
+        assertEquals(100, metrics.getTransactionsParsed());
+        assertEquals(entries, metrics.getEntriesParsed());
+        assertTrue(metrics.getParseNanos() > 0);
+
+        // the journal reports its queries to the same metrics
+        journal.getBalance("Assets:Cash");
+        assertEquals(1, metrics.getQueryLatencies(Metrics.Query.BALANCE).getCount());
+
+        assertThrows(IllegalArgumentException.class, () -> reader.parseTransaction("2023/03/06 Payee\n    Assets:Cash    2 FOO"));
+        assertEquals(1, metrics.getParseErrors());
+    }
+}
@@ -0,0 +1,87 @@
+package io;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerTokenizerTest {
+
+    @Test
+    void nextLine() {
+        var text = "2023/03/06 Opening Balance\n\n    ; a comment\n    Assets:Cash  500\n   \n";
+        var tokenizer = new LedgerTokenizer(text, ',', '.');
+        assertTrue(tokenizer.nextLine());
+        assertTrue(tokenizer.parseHeader());
+        assertTrue(tokenizer.nextLine());
+        assertTrue(tokenizer.parseEntry());
+        assertEquals("Assets:Cash", tokenizer.account());
+        assertFalse(tokenizer.nextLine());
+    }
+
+    @Test
+    void parseHeader() {
+        var tokenizer = new LedgerTokenizer("2023/03/06 ! Moe's restaurant  ", ',', '.');
+        assertTrue(tokenizer.nextLine());
+        assertTrue(tokenizer.parseHeader());
+        assertEquals("2023/03/06", tokenizer.date());
+        assertEquals(2023, tokenizer.year());
+        assertEquals(3, tokenizer.month());
+        assertEquals(6, tokenizer.day());
+        assertEquals('!', tokenizer.status());
+        assertEquals("Moe's restaurant", tokenizer.payee());
+
+        // not a date
+        tokenizer = new LedgerTokenizer("Opening Balance", ',', '.');
+        assertTrue(tokenizer.nextLine());
+        assertFalse(tokenizer.parseHeader());
+    }
+
+    @Test
+    void parseEntry() {
+        // account with a single space, tab separator
+        var tokenizer = new LedgerTokenizer("\tAssets:Debit Card\t-10 €", ',', '.');
+        assertTrue(tokenizer.nextLine());
+        assertTrue(tokenizer.parseEntry());
+        assertEquals("Assets:Debit Card", tokenizer.account());
+        assertEquals("-10 €", tokenizer.amount());
+
+        // not indented
+        tokenizer = new LedgerTokenizer("Assets:Cash    500", ',', '.');
+        assertTrue(tokenizer.nextLine());
+        assertFalse(tokenizer.parseEntry());
+    }
+
+    @Test
+    void parseAmount() {
+        // currency after the number, grouping separator
+        var tokenizer = new LedgerTokenizer("-1.000,50 €", ',', '.');
+        assertTrue(tokenizer.parseAmountText());
+        assertEquals(-100050, tokenizer.unscaledAmount());
+        assertEquals(2, tokenizer.scale());
+        assertEquals("€", tokenizer.currency());
+
+        // currency before the number
+        tokenizer = new LedgerTokenizer("¥ 35.95", '.', ',');
+        assertTrue(tokenizer.parseAmountText());
+        assertEquals(3595, tokenizer.unscaledAmount());
+        assertEquals(2, tokenizer.scale());
+        assertEquals("¥", tokenizer.currency());
+
+        // no currency
+        tokenizer = new LedgerTokenizer("500", ',', '.');
+        assertTrue(tokenizer.parseAmountText());
+        assertEquals(500, tokenizer.unscaledAmount());
+        assertEquals(0, tokenizer.scale());
+        assertNull(tokenizer.currency());
+
+        // number that does not fit in a long
+        tokenizer = new LedgerTokenizer("EUR -12345678901234567890,5", ',', '.');
+        assertTrue(tokenizer.parseAmountText());
+        assertTrue(tokenizer.isLargeAmount());
+        assertEquals("-12345678901234567890.5", tokenizer.number());
+
+        // no number
+        tokenizer = new LedgerTokenizer("foo bar baz", ',', '.');
+        assertFalse(tokenizer.parseAmountText());
+    }
+}
@@ -5,8 +5,13 @@ import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junitpioneer.jupiter.DefaultLocale;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -14,6 +19,8 @@ import java.util.List;
 import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DefaultLocale("es-ES")
 class LedgerWriterTest {
@@ -82,4 +89,150 @@ class LedgerWriterTest {
         var expected3 = "    Assets:Cash                                         -35,95 €";
         assertEquals(expected3, writer.buildEntry(entry3, Locale.getDefault()));
     }
+
+    @Test
+    void writeJournal(@TempDir Path tempDir) throws IOException {
+        var journal = new Journal();
+        transactions.forEach(journal::addTransaction);
+
+        var expected = """
+                2023/03/06 * Opening Balance
+                    Assets:Cash                                         500,00 €
+                    Assets:Debit Card                                   500,00 €
+                    Equity:Opening Balances                          -1.000,00 €
+
+                2023/03/07 ? Moe's restaurant
+                    Expenses:Restaurant:Food                             20,00 €
+                    Expenses:Restaurant:Tips                              2,00 €
+                    Assets:Cash                                         -12,00 €
+                    Assets:Debit Card                                   -10,00 €
+
+                2023/03/07 Mike's convenience store
+                    Expenses:Groceries                                   35,95 €
+                    Assets:Cash                                         -35,95 €
+                """;
+
+        // to an appendable
+        var output = new StringBuilder();
+        writer.writeJournal(journal, output);
+        assertEquals(expected, output.toString());
+
+        // to a file, overwriting its previous content
+        var file = tempDir.resolve("output.ledger");
+        Files.writeString(file, "previous content that is longer than the journal".repeat(100));
+        writer.writeJournal(journal, file, true);
+        assertEquals(expected, Files.readString(file));
+    }
+
+    @Test
+    void appendJournal(@TempDir Path tempDir) throws IOException {
+        var journal = new Journal();
+        var file = tempDir.resolve("output.ledger");
+        var expected = new StringBuilder();
+
+        // one transaction at a time, as they are added
+        for (var transaction : transactions) {
+            journal.addTransaction(transaction);
+            assertEquals(1, writer.appendJournal(journal, file, true));
+        }
+        assertEquals(0, writer.appendJournal(journal, file, false));
+        writer.writeJournal(journal, expected);
+        assertEquals(expected.toString(), Files.readString(file));
+        assertEquals("3 " + Files.size(file), Files.readString(tempDir.resolve("output.ledger.mark")).trim());
+    }
+
+    @Test
+    void appendAfterInterruptedAppend(@TempDir Path tempDir) throws IOException {
+        var journal = new Journal();
+        transactions.subList(0, 2).forEach(journal::addTransaction);
+        var file = tempDir.resolve("output.ledger");
+        assertEquals(2, writer.appendJournal(journal, file, false));
+        var mark = Files.readString(tempDir.resolve("output.ledger.mark"));
+
+        // the process stopped while appending the third transaction, before updating the mark
+        journal.addTransaction(transactions.get(2));
+        var expected = new StringBuilder();
+        writer.writeJournal(journal, expected);
+        Files.writeString(file, expected.substring(0, (int) Files.size(file) + 20));
+        assertEquals(mark, Files.readString(tempDir.resolve("output.ledger.mark")));
+
+        assertEquals(1, writer.appendJournal(journal, file, false));
+        assertEquals(expected.toString(), Files.readString(file));
+    }
+
+    @Test
+    void appendAfterOtherProgram(@TempDir Path tempDir) throws IOException {
+        var journal = new Journal();
+        journal.addTransaction(transactions.get(0));
+        var file = tempDir.resolve("output.ledger");
+        assertEquals(1, writer.appendJournal(journal, file, false));
+
+        // another program appends a transaction that is not in the journal
+        var other = """
+
+                2023/03/08 Someone else
+                    Expenses:Groceries                           10,00 €
+                    Assets:Cash                                 -10,00 €
+                """;
+        Files.writeString(file, other, StandardOpenOption.APPEND);
+        var content = Files.readString(file);
+        var mark = Files.readString(tempDir.resolve("output.ledger.mark"));
+
+        // its bytes are kept, whether there is something to append or not
+        assertThrows(IllegalStateException.class, () -> writer.appendJournal(journal, file, false));
+        journal.addTransaction(transactions.get(1));
+        assertThrows(IllegalStateException.class, () -> writer.appendJournal(journal, file, false));
+        assertEquals(content, Files.readString(file));
+        assertEquals(mark, Files.readString(tempDir.resolve("output.ledger.mark")));
+    }
+
+    @Test
+    void appendLargeBatch(@TempDir Path tempDir) throws IOException {
+        var generated = tempDir.resolve("generated.ledger");
+        new JournalGenerator(1).withTransactions(2000).generate(generated);
+        var journal = new LedgerReader().readJournal(generated).getJournal();
+        var file = tempDir.resolve("output.ledger");
+
+        // far larger than any buffer between the writer and the channel
+        assertEquals(2000, writer.appendJournal(journal, file, false));
+        var expected = new StringBuilder();
+        writer.writeJournal(journal, expected);
+        assertTrue(expected.length() > 100_000);
+        assertEquals(expected.toString(), Files.readString(file));
+    }
+
+    @Test
+    void appendJournalWithoutMark(@TempDir Path tempDir) throws IOException {
+        var journal = new Journal();
+        transactions.subList(0, 2).forEach(journal::addTransaction);
+        var file = tempDir.resolve("output.ledger");
+        writer.writeJournal(journal, file);
+
+        journal.addTransaction(transactions.get(2));
+        assertEquals(1, writer.appendJournal(journal, file, false));
+        var expected = new StringBuilder();
+        writer.writeJournal(journal, expected);
+        assertEquals(expected.toString(), Files.readString(file));
+    }
+
+    @Test
+    void metrics(@TempDir Path tempDir) throws IOException {
+        var journal = new Journal();
+        transactions.forEach(journal::addTransaction);
+        var file = tempDir.resolve("output.ledger");
+        var metrics = new RecordingMetrics();
+        writer.setMetrics(metrics);
+
+        writer.writeJournal(journal, file, true);
+        assertEquals(Files.size(file), metrics.getBytesWritten());
+        assertEquals(1, metrics.getSyncs());
+
+        // appending forces both the file and its high-water mark
+        var size = Files.size(file);
+        journal.addTransaction(transactions.get(0));
+        writer.appendJournal(journal, file, true);
+        assertEquals(Files.size(file), metrics.getBytesWritten());
+        assertEquals(3, metrics.getSyncs());
+        assertTrue(Files.size(file) > size);
+    }
 }
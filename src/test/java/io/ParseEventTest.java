@@ -0,0 +1,81 @@
+package io;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DefaultLocale("es-ES")
+class ParseEventTest {
+
+    private interface Operations {
+        void run() throws IOException;
+    }
+
+    private static List<RecordedEvent> record(Path tempDir, String eventName, Operations operations) throws IOException {
+        var file = tempDir.resolve("recording.jfr");
+        try (var recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            operations.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .toList();
+    }
+
+    @Test
+    void parseEvents(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("generated.ledger");
+        new JournalGenerator(1).withTransactions(100).generate(file);
+
+        var events = record(tempDir, "ledger.Parse", () -> new LedgerReader().readJournal(file));
+        assertEquals(1, events.size());
+        assertEquals(file.toString(), events.get(0).getString("file"));
+        assertEquals(Files.size(file), events.get(0).getLong("size"));
+        assertEquals(100, events.get(0).getLong("transactions"));
+
+        // one event per chunk when reading in parallel
+        var pool = new ForkJoinPool(2);
+        try (var channel = FileChannel.open(file)) {
+            var chunks = record(tempDir, "ledger.Parse", () -> new LedgerReader().readJournalInParallel(file, channel, pool, 4096));
+            assertEquals(100, chunks.stream().mapToLong(event -> event.getLong("transactions")).sum());
+            assertEquals(Files.size(file), chunks.stream().mapToLong(event -> event.getLong("size")).sum());
+            assertEquals(0, chunks.stream().mapToLong(event -> event.getLong("offset")).min().orElseThrow());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void writeEvents(@TempDir Path tempDir) throws IOException {
+        var generated = tempDir.resolve("generated.ledger");
+        new JournalGenerator(1).withTransactions(100).generate(generated);
+        var journal = new LedgerReader().readJournal(generated).getJournal();
+        var file = tempDir.resolve("output.ledger");
+        var events = record(tempDir, "ledger.Write", () -> {
+            new LedgerWriter().writeJournal(journal, file, true);
+            new LedgerWriter().writeJournal(journal, new StringBuilder());
+        });
+        assertEquals(2, events.size());
+        assertEquals(file.toString(), events.get(0).getString("file"));
+        assertEquals(journal.getTransactions().size(), events.get(0).getLong("transactions"));
+        assertEquals(Files.readString(file).length(), events.get(0).getLong("outputSize"));
+        assertEquals(true, events.get(0).getBoolean("synced"));
+        assertEquals(null, events.get(1).getString("file"));
+    }
+}
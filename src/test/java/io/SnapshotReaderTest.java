@@ -0,0 +1,168 @@
+package io;
+
+import core.*;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junitpioneer.jupiter.DefaultLocale;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DefaultLocale("es-ES")
+class SnapshotReaderTest {
+    private static final Path EXAMPLE = Path.of("src/main/resources/example.ledger");
+
+    @Test
+    void readSnapshot(@TempDir Path tempDir) throws IOException {
+        var ledger = new LedgerReader().readJournal(EXAMPLE);
+        var file = tempDir.resolve("example.snapshot");
+        new SnapshotWriter().writeJournal(ledger.getJournal(), file);
+
+        var snapshot = new SnapshotReader().readJournal(file);
+        var journal = snapshot.getJournal();
+        assertEquals(Locale.getDefault(), journal.getLocale());
+        assertEquals(ledger.getTransactions(), snapshot.getTransactions());
+        assertEquals(ledger.getAccounts(), snapshot.getAccounts());
+        assertEquals(ledger.getJournal().getBalance("Assets:Cash"), journal.getBalance("Assets:Cash"));
+        assertEquals(ledger.getJournal().getBalanceTreeReport(), journal.getBalanceTreeReport());
+        assertEquals(ledger.getJournal().query().withAccountPrefix("Expenses:").getBalance(),
+                journal.query().withAccountPrefix("Expenses:").getBalance());
+    }
+
+    @Test
+    void writeToStream(@TempDir Path tempDir) throws IOException {
+        var ledger = new LedgerReader().readJournal(EXAMPLE);
+        var output = new ByteArrayOutputStream();
+        new SnapshotWriter().writeJournal(ledger.getJournal(), output);
+        var file = Files.write(tempDir.resolve("example.snapshot"), output.toByteArray());
+
+        assertEquals(ledger.getTransactions(), new SnapshotReader().readJournal(file).getTransactions());
+    }
+
+    @Test
+    void readLargeAmounts(@TempDir Path tempDir) throws IOException {
+        var currency = CurrencyUnit.of(Locale.getDefault());
+        var large = Money.of(currency, new BigDecimal("123456789012345678901.25"));
+        var journal = new Journal(Locale.getDefault());
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 6), TransactionStatus.PENDING, new Payee("Bank"),
+                List.of(new Entry(new Account("Assets:Bank"), large),
+                        new Entry(new Account("Equity:Opening Balances"), large.negated()))));
+        var file = tempDir.resolve("large.snapshot");
+        new SnapshotWriter().writeJournal(journal, file);
+
+        var snapshot = new SnapshotReader().readJournal(file).getJournal();
+        assertEquals(journal.getTransactions(), snapshot.getTransactions());
+        assertEquals(large, snapshot.getBalance("Assets:Bank"));
+    }
+
+    @Test
+    void readSmallestAndMissingAmounts(@TempDir Path tempDir) throws IOException {
+        var currency = CurrencyUnit.of(Locale.getDefault());
+        var smallest = Money.ofMinor(currency, Long.MIN_VALUE);
+        var journal = new Journal(Locale.getDefault());
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 6), null, new Payee("Bank"),
+                List.of(new Entry(new Account("Liabilities:Loan"), smallest),
+                        new Entry(new Account("Assets:Bank"), smallest.negated()),
+                        new Entry(new Account("Equity:Opening Balances"), null))));
+        var file = tempDir.resolve("smallest.snapshot");
+        new SnapshotWriter().writeJournal(journal, file);
+
+        var snapshot = new SnapshotReader().readJournal(file).getJournal();
+        assertEquals(journal.getTransactions(), snapshot.getTransactions());
+        assertEquals(smallest, snapshot.getBalance("Liabilities:Loan"));
+        assertEquals(smallest.negated(), snapshot.getBalance("Assets:Bank"));
+        assertEquals(journal.getBalance("Equity"), snapshot.getBalance("Equity"));
+    }
+
+    @Test
+    void queryWithoutBuildingTransactions(@TempDir Path tempDir) throws IOException {
+        var ledger = new LedgerReader().readJournal(EXAMPLE);
+        var file = tempDir.resolve("example.snapshot");
+        new SnapshotWriter().writeJournal(ledger.getJournal(), file);
+
+        try (var channel = FileChannel.open(file)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            // indexing and balances read the columns of the snapshot, without building transactions, entries or amounts
+            var store = new SnapshotTransactionStore(buffer, new ChartOfAccounts()) {
+                @Override
+                public Transaction get(int index) {
+                    throw new AssertionError("Transaction built");
+                }
+
+                @Override
+                public Entry getEntry(int index, int entry) {
+                    throw new AssertionError("Entry built");
+                }
+
+                @Override
+                public Money getAmount(int index, int entry) {
+                    throw new AssertionError("Amount built");
+                }
+            };
+            var journal = new Journal(store.getLocale(), store);
+            var expected = ledger.getJournal();
+            assertEquals(expected.getBalance("Assets:Cash"), journal.getBalance("Assets:Cash"));
+            assertEquals(expected.getBalanceTreeReport(), journal.getBalanceTreeReport());
+            assertEquals(expected.query().withAccountPrefix("Expenses:").getBalance(),
+                    journal.query().withAccountPrefix("Expenses:").getBalance());
+        }
+    }
+
+    @Test
+    void readAccountsNamedLikePayees(@TempDir Path tempDir) throws IOException {
+        var currency = CurrencyUnit.of(Locale.getDefault());
+        var journal = new Journal(Locale.getDefault());
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 6), null, new Payee("Cash"),
+                List.of(new Entry(new Account("Cash"), Money.of(currency, 10)),
+                        new Entry(new Account("Equity"), Money.of(currency, -10)))));
+        journal.addTransaction(new Transaction(LocalDate.of(2023, 3, 7), null, new Payee("Equity"),
+                List.of(new Entry(new Account("EUR"), Money.of(currency, 5)),
+                        new Entry(new Account("Cash"), Money.of(currency, -5)))));
+        var file = tempDir.resolve("names.snapshot");
+        new SnapshotWriter().writeJournal(journal, file);
+
+        var snapshot = new SnapshotReader().readJournal(file);
+        assertEquals(List.of("Cash", "EUR", "Equity"), snapshot.getAccounts().stream().map(Account::getName).sorted().toList());
+        assertEquals(journal.getTransactions(), snapshot.getTransactions());
+        assertEquals(Money.of(currency, 5), snapshot.getJournal().getBalance("Cash"));
+    }
+
+    @Test
+    void addTransactionsAfterReading(@TempDir Path tempDir) throws IOException {
+        var ledger = new LedgerReader().readJournal(EXAMPLE);
+        var file = tempDir.resolve("example.snapshot");
+        new SnapshotWriter().writeJournal(ledger.getJournal(), file);
+
+        var snapshot = new SnapshotReader().readJournal(file);
+        var journal = snapshot.getJournal();
+        var currency = journal.getDefaultCurrency();
+        var transaction = new Transaction(LocalDate.of(2023, 3, 8), null, new Payee("Moe's restaurant"),
+                List.of(new Entry(new Account("Expenses:Restaurant:Food"), Money.of(currency, 10)),
+                        new Entry(new Account("Assets:Cash"), Money.of(currency, -10))));
+        journal.addTransaction(transaction);
+        ledger.getJournal().addTransaction(transaction);
+
+        assertEquals(ledger.getTransactions(), snapshot.getTransactions());
+        assertEquals(ledger.getJournal().getBalance("Assets:Cash"), journal.getBalance("Assets:Cash"));
+        assertEquals(2, journal.query().withPayee(new Payee("Moe's restaurant")).getTransactions().size());
+    }
+
+    @Test
+    void readInvalidSnapshot(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("example.snapshot");
+        Files.copy(EXAMPLE, file);
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotReader().readJournal(file));
+    }
+}